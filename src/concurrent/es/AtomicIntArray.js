@@ -0,0 +1,70 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 2026  agent  Creation
+//
+
+/**
+ * AtomicIntArray
+ */
+class AtomicIntArray extends sys.Obj {
+  constructor(size) {
+    super();
+    this.#array = new Array(size).fill(0);
+  }
+
+  #array;
+
+  static make(size, padded=false) {
+    if (size < 0) throw sys.ArgErr.make(`size < 0: ${size}`);
+    return new AtomicIntArray(size);
+  }
+
+  typeof() { return AtomicIntArray.type$; }
+
+  size() { return this.#array.length; }
+
+  get(index) { return this.#array[this.#index(index)]; }
+
+  set(index, val) { this.#array[this.#index(index)] = val; }
+
+  getAndSet(index, val) {
+    const i = this.#index(index);
+    const old = this.#array[i];
+    this.#array[i] = val;
+    return old;
+  }
+
+  compareAndSet(index, expect, update) {
+    const i = this.#index(index);
+    if (this.#array[i] != expect) return false;
+    this.#array[i] = update;
+    return true;
+  }
+
+  getAndAdd(index, delta) {
+    const i = this.#index(index);
+    const old = this.#array[i];
+    this.#array[i] = old + delta;
+    return old;
+  }
+
+  addAndGet(index, delta) { return this.getAndAdd(index, delta) + delta; }
+
+  increment(index) { this.getAndAdd(index, 1); }
+
+  decrement(index) { this.getAndAdd(index, -1); }
+
+  add(index, delta) { this.getAndAdd(index, delta); }
+
+  toList() { return sys.List.make(sys.Int.type$, this.#array.slice()); }
+
+  toStr() { return this.toList().toStr(); }
+
+  #index(index) {
+    if (index < 0 || index >= this.#array.length) throw sys.IndexErr.make(index);
+    return index;
+  }
+}
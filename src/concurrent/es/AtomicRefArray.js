@@ -0,0 +1,61 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 2026  agent  Creation
+//
+
+/**
+ * AtomicRefArray
+ */
+class AtomicRefArray extends sys.Obj {
+  constructor(size) {
+    super();
+    this.#array = new Array(size).fill(null);
+  }
+
+  #array;
+
+  static make(size) {
+    if (size < 0) throw sys.ArgErr.make(`size < 0: ${size}`);
+    return new AtomicRefArray(size);
+  }
+
+  typeof() { return AtomicRefArray.type$; }
+
+  size() { return this.#array.length; }
+
+  get(index) { return this.#array[this.#index(index)]; }
+
+  set(index, val) { this.#array[this.#index(index)] = this.#checkImmutable(val); }
+
+  getAndSet(index, val) {
+    const i = this.#index(index);
+    const old = this.#array[i];
+    this.#array[i] = this.#checkImmutable(val);
+    return old;
+  }
+
+  compareAndSet(index, expect, update) {
+    const i = this.#index(index);
+    this.#checkImmutable(update);
+    if (this.#array[i] !== expect) return false;
+    this.#array[i] = update;
+    return true;
+  }
+
+  toList() { return sys.List.make(sys.Obj.type$.toNullable(), this.#array.slice()); }
+
+  toStr() { return this.toList().toStr(); }
+
+  #index(index) {
+    if (index < 0 || index >= this.#array.length) throw sys.IndexErr.make(index);
+    return index;
+  }
+
+  #checkImmutable(val) {
+    if (val == null || sys.ObjUtil.isImmutable(val)) return val;
+    throw sys.NotImmutableErr.make();
+  }
+}
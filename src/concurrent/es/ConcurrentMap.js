@@ -68,6 +68,48 @@ class ConcurrentMap extends sys.Obj {
 
   eachWhile(f) { return this.#map.eachWhile(f); }
 
+  compute(key, f) {
+    const val = f(key, this.get(key));
+    if (val == null) this.remove(key);
+    else this.set(key, val);
+    return val;
+  }
+
+  computeIfAbsent(key, f) {
+    let val = this.get(key);
+    if (val != null) return val;
+    val = f(key);
+    if (val != null) this.set(key, val);
+    return val;
+  }
+
+  merge(key, val, f) {
+    const old = this.get(key);
+    if (old == null) { this.set(key, val); return val; }
+    const merged = f(old, val);
+    if (merged == null) this.remove(key);
+    else this.set(key, merged);
+    return merged;
+  }
+
+  removeIf(f) {
+    const keys = [];
+    this.#map.each((v, k) => { if (f(v, k)) keys.push(k); });
+    keys.forEach((k) => { this.remove(k); });
+    return keys.length;
+  }
+
+  eachParallel(threshold, f) { this.#map.each(f); }
+
+  reduce(threshold, transform, reducer) {
+    let acc = null;
+    this.#map.each((v, k) => {
+      const x = transform(v, k);
+      if (x != null) acc = acc == null ? x : reducer(acc, x);
+    });
+    return acc;
+  }
+
   containsKey(key) { return this.#map.containsKey(key); }
 
   keys(of) {
@@ -0,0 +1,34 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 2026  agent  Creation
+//
+
+/**
+ * FloatAdder
+ */
+class FloatAdder extends sys.Obj {
+  constructor() { super(); }
+
+  #sum = sys.Float.make(0);
+
+  static make() { return new FloatAdder(); }
+
+  typeof() { return FloatAdder.type$; }
+
+  add(delta) { this.#sum = sys.Float.make(this.#sum + delta); }
+
+  sum() { return this.#sum; }
+
+  reset() { this.#sum = sys.Float.make(0); }
+
+  sumThenReset() {
+    const sum = this.#sum;
+    this.reset();
+    return sum;
+  }
+
+  toStr() { return sys.Float.toStr(this.#sum); }
+}
@@ -0,0 +1,38 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 2026  agent  Creation
+//
+
+/**
+ * IntAdder
+ */
+class IntAdder extends sys.Obj {
+  constructor() { super(); }
+
+  #sum = 0;
+
+  static make() { return new IntAdder(); }
+
+  typeof() { return IntAdder.type$; }
+
+  increment() { this.#sum++; }
+
+  decrement() { this.#sum--; }
+
+  add(delta) { this.#sum += delta; }
+
+  sum() { return this.#sum; }
+
+  reset() { this.#sum = 0; }
+
+  sumThenReset() {
+    const sum = this.#sum;
+    this.#sum = 0;
+    return sum;
+  }
+
+  toStr() { return "" + this.#sum; }
+}
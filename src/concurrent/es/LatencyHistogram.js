@@ -0,0 +1,106 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 2026  agent  Creation
+//
+
+/**
+ * LatencyHistogram
+ */
+class LatencyHistogram extends sys.Obj {
+  constructor() {
+    super();
+    this.reset();
+  }
+
+  static #SUB = 32;
+  static #MAX_MAG = 43;
+  static #BUCKETS = (43 - 5 + 2) * 32;
+
+  #counts;
+  #count;
+  #sum;
+  #min;
+  #max;
+
+  static make() { return new LatencyHistogram(); }
+
+  typeof() { return LatencyHistogram.type$; }
+
+  record(d) {
+    const ticks = Math.max(0, d.ticks());
+    this.#counts[LatencyHistogram.#index(ticks)]++;
+    this.#count++;
+    this.#sum += ticks;
+    if (ticks > this.#max) this.#max = ticks;
+    if (ticks < this.#min) this.#min = ticks;
+  }
+
+  reset() {
+    this.#counts = new Array(LatencyHistogram.#BUCKETS).fill(0);
+    this.#count = 0;
+    this.#sum = 0;
+    this.#min = Number.MAX_VALUE;
+    this.#max = 0;
+  }
+
+  count() { return this.#count; }
+
+  min() { return this.#count == 0 ? null : sys.Duration.make(this.#min); }
+
+  max() { return this.#count == 0 ? null : sys.Duration.make(this.#max); }
+
+  mean() { return this.#count == 0 ? null : sys.Duration.make(Math.floor(this.#sum / this.#count)); }
+
+  percentile(percent) {
+    if (!(percent >= 0 && percent <= 100)) throw sys.ArgErr.make(`percent must be 0 to 100: ${percent}`);
+    const ticks = this.#ticksAt(percent);
+    return ticks < 0 ? null : sys.Duration.make(ticks);
+  }
+
+  #ticksAt(percent) {
+    if (this.#count == 0) return -1;
+    const rank = Math.max(1, Math.ceil(percent / 100 * this.#count));
+    let acc = 0;
+
+    // the last bucket holds every value past 2^43 ticks so its upper
+    // bound is meaningless; any rank beyond the others is at most max
+    for (let i=0; i<this.#counts.length-1; ++i) {
+      acc += this.#counts[i];
+      if (acc >= rank) return Math.max(Math.min(LatencyHistogram.#upper(i), this.#max), this.#min);
+    }
+    return this.#max;
+  }
+
+  toStr() {
+    if (this.#count == 0) return "count=0";
+    const loc = (ticks) => sys.Duration.make(ticks).toLocale();
+    return "count=" + this.#count +
+           " mean=" + this.mean().toLocale() +
+           " p50=" + loc(this.#ticksAt(50)) +
+           " p90=" + loc(this.#ticksAt(90)) +
+           " p99=" + loc(this.#ticksAt(99)) +
+           " p999=" + loc(this.#ticksAt(99.9)) +
+           " max=" + loc(this.#max);
+  }
+
+  static #index(ticks) {
+    const SUB = LatencyHistogram.#SUB;
+    if (ticks < SUB) return ticks;
+    let mag = Math.floor(Math.log2(ticks));
+    if (2 ** mag > ticks) mag--;
+    else if (2 ** (mag+1) <= ticks) mag++;
+    if (mag > LatencyHistogram.#MAX_MAG) return LatencyHistogram.#BUCKETS - 1;
+    return (mag - 4) * SUB + (Math.floor(ticks / 2 ** (mag - 5)) - SUB);
+  }
+
+  static #upper(index) {
+    const SUB = LatencyHistogram.#SUB;
+    if (index < SUB) return index;
+    const mag = Math.floor(index / SUB) + 4;
+    const lower = (SUB + index % SUB) * 2 ** (mag - 5);
+    return lower + 2 ** (mag - 5) - 1;
+  }
+}
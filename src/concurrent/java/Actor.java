@@ -10,6 +10,10 @@ package fan.concurrent;
 
 import fan.sys.*;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Actor is a worker who processes messages asynchronously.
@@ -23,16 +27,25 @@ public class Actor
 // Construction
 //////////////////////////////////////////////////////////////////////////
 
-  public static Actor make(ActorPool pool) { return make(pool, null); }
-  public static Actor make(ActorPool pool, Func receive)
+  public static Actor make(ActorPool pool) { return make(pool, null, null); }
+  public static Actor make(ActorPool pool, Func receive) { return make(pool, receive, null); }
+  public static Actor make(ActorPool pool, Func receive, QueuePolicy policy)
   {
     Actor self = new Actor();
-    make$(self, pool, receive);
+    make$(self, pool, receive, policy);
     return self;
   }
 
-  public static void make$(Actor self, ActorPool pool) { make$(self, pool, null); }
-  public static void make$(Actor self, ActorPool pool, Func receive)
+  public static void make$(Actor self, ActorPool pool) { make$(self, pool, null, null); }
+  public static void make$(Actor self, ActorPool pool, Func receive) { make$(self, pool, receive, null); }
+  public static void make$(Actor self, ActorPool pool, Func receive, QueuePolicy policy)
+  {
+    if (policy != null && policy.coalesceWindow() != null)
+      throw ArgErr.make("QueuePolicy.coalesceWindow requires makeCoalescing");
+    init(self, pool, receive, policy);
+  }
+
+  private static void init(Actor self, ActorPool pool, Func receive, QueuePolicy policy)
   {
     // check pool
     if (pool == null)
@@ -46,25 +59,68 @@ public class Actor
     // init
     self.pool = pool;
     self.receive = receive;
+    self.maxQueue = (int)pool.maxQueue;
     self.queue = new Queue();
+    if (policy != null) self.initPolicy(policy);
+    if (pool.latencyHistograms)
+    {
+      self.queueWaits = new LatencyHistogram();
+      self.receiveTimes = new LatencyHistogram();
+    }
   }
 
-  public static Actor makeCoalescing(ActorPool pool, Func k, Func c) { return makeCoalescing(pool, k, c, null); }
-  public static Actor makeCoalescing(ActorPool pool, Func k, Func c, Func r)
+  public static Actor makeCoalescing(ActorPool pool, Func k, Func c) { return makeCoalescing(pool, k, c, null, null); }
+  public static Actor makeCoalescing(ActorPool pool, Func k, Func c, Func r) { return makeCoalescing(pool, k, c, r, null); }
+  public static Actor makeCoalescing(ActorPool pool, Func k, Func c, Func r, QueuePolicy policy)
   {
     Actor self = new Actor();
-    makeCoalescing$(self, pool, k, c, r);
+    makeCoalescing$(self, pool, k, c, r, policy);
     return self;
   }
 
-  public static void makeCoalescing$(Actor self, ActorPool pool, Func k, Func c) { makeCoalescing$(self, pool, k, c, null); }
-  public static void makeCoalescing$(Actor self, ActorPool pool, Func k, Func c, Func r)
+  public static void makeCoalescing$(Actor self, ActorPool pool, Func k, Func c) { makeCoalescing$(self, pool, k, c, null, null); }
+  public static void makeCoalescing$(Actor self, ActorPool pool, Func k, Func c, Func r) { makeCoalescing$(self, pool, k, c, r, null); }
+  public static void makeCoalescing$(Actor self, ActorPool pool, Func k, Func c, Func r, QueuePolicy policy)
   {
     if (k != null) k = (Func)k.toImmutable();
     if (c != null) c = (Func)c.toImmutable();
 
-    make$(self, pool, r);
-    self.queue = new CoalescingQueue(k, c);
+    // coalesceOrFail only merges once the queue is full, which
+    // contradicts holding messages for a window while idle
+    boolean onlyWhenFull = policy != null && policy.overflow() == QueueOverflow.coalesceOrFail;
+    if (onlyWhenFull && policy.coalesceWindow() != null)
+      throw ArgErr.make("QueuePolicy.coalesceWindow cannot be used with coalesceOrFail");
+
+    init(self, pool, r, policy);
+    self.queue = new CoalescingQueue(k, c, onlyWhenFull);
+    if (policy != null && policy.coalesceWindow() != null)
+      self.window = policy.coalesceWindow();
+  }
+
+  private void initPolicy(QueuePolicy policy)
+  {
+    this.policy = policy;
+    if (policy.maxQueue() != null)
+      this.maxQueue = (int)Math.min(policy.maxQueue().longValue(), Integer.MAX_VALUE);
+
+    // pick the queue implementation for the overflow action
+    this.overflow = policy.overflow();
+    if (overflow == QueueOverflow.dropOldest)
+      this.queue = new LockedQueue();
+    else if (overflow == QueueOverflow.coalesceOrFail)
+      this.queue = new CoalescingQueue(null, null, true);
+
+    // shed messages older than max age
+    if (policy.maxMessageAge() != null)
+      this.maxAge = policy.maxMessageAge().ticks();
+
+    // watermarks
+    if (policy.highWatermark() != null)
+    {
+      this.highWatermark = (int)Math.min(policy.highWatermark().longValue(), Integer.MAX_VALUE);
+      this.lowWatermark = policy.lowWatermark() != null ? (int)policy.lowWatermark().longValue() : highWatermark / 2;
+      this.onWatermark = policy.onWatermark();
+    }
   }
 
   public Actor()
@@ -89,13 +145,15 @@ public class Actor
 
   public final ActorPool pool() { return pool; }
 
-  public final Future send(Object msg) { return _send(msg, null, null); }
+  public final Future send(Object msg) { return _send(msg, null, null, 0L); }
+
+  public final Future sendLater(Duration d, Object msg) { return _send(msg, d, null, 0L); }
 
-  public final Future sendLater(Duration d, Object msg) { return _send(msg, d, null); }
+  public final Future sendWithin(Duration d, Object msg) { return _send(msg, null, null, Math.max(d.ticks(), 1L)); }
 
-  public final Future sendWhenComplete(Future f, Object msg) { return _send(msg, null, f); }
+  public final Future sendWhenComplete(Future f, Object msg) { return _send(msg, null, f, 0L); }
 
-  public final Future sendWhenDone(Future f, Object msg) { return _send(msg, null, f); }
+  public final Future sendWhenDone(Future f, Object msg) { return _send(msg, null, f, 0L); }
 
   protected Object receive(Object msg)
   {
@@ -104,6 +162,15 @@ public class Actor
     return null;
   }
 
+  protected long maxBatchSize() { return 1; }
+
+  protected List receiveBatch(List msgs)
+  {
+    List results = List.make(Sys.ObjType.toNullable(), msgs.sz());
+    for (int i=0; i<msgs.sz(); ++i) results.add(receive(msgs.get(i)));
+    return results;
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Diagnostics
 //////////////////////////////////////////////////////////////////////////
@@ -111,20 +178,28 @@ public class Actor
   public final String threadState()
   {
     if (curMsg != idleMsg) return "running";
-    if (submitted) return "pending";
+    if (submitted.get()) return "pending";
     return "idle";
   }
 
-  public final boolean isQueueFull() { return queue.size >= (int)pool.maxQueue; }
+  public final boolean isQueueFull() { return queue.size() >= maxQueue; }
+
+  public final boolean isQueueHigh() { return queueHigh.get(); }
 
-  public final long queueSize() { return queue.size; }
+  public final long queueSize() { return queue.size(); }
 
-  public final long queuePeak() { return queue.peak; }
+  public final long queuePeak() { return queue.peak(); }
 
   public final long receiveCount() { return receiveCount; }
 
+  public final long shedCount() { return shed; }
+
   public final long receiveTicks() { return receiveTicks; }
 
+  public final LatencyHistogram queueWaitHistogram() { return queueWaits; }
+
+  public final LatencyHistogram receiveHistogram() { return receiveTimes; }
+
 //////////////////////////////////////////////////////////////////////////
 // Utils
 //////////////////////////////////////////////////////////////////////////
@@ -155,7 +230,7 @@ public class Actor
 // Implementation
 //////////////////////////////////////////////////////////////////////////
 
-  private Future _send(Object msg, Duration dur, Future whenDone)
+  private Future _send(Object msg, Duration dur, Future whenDone, long within)
   {
     // ensure immutable or safe copy
     msg = _safe(msg);
@@ -165,6 +240,7 @@ public class Actor
 
     // get the future instance to manage this message's lifecycle
     ActorFuture f = new ActorFuture(msg);
+    if (within > 0L) f.deadline = Duration.nowTicks() + within;
 
     // either enqueue immediately or schedule with pool
     if (dur != null)
@@ -197,63 +273,242 @@ public class Actor
 
   private final ActorFuture _enqueue(ActorFuture f, boolean coalesce, boolean checkMaxQueue)
   {
-    synchronized (lock)
+    // stamp enqueue time for queue wait histograms and flight recorder events
+    if (queueWaits != null || ActorEvents.recording) f.enqueueTicks = Duration.nowTicks();
+
+    // stamp the deadline for max message age, keeping an earlier one
+    if (maxAge > 0L)
     {
-      // attempt to coalesce
-      if (coalesce)
+      long deadline = Duration.nowTicks() + maxAge;
+      if (f.deadline == 0L || deadline - f.deadline < 0L) f.deadline = deadline;
+    }
+
+    // add to queue, which might coalesce or reject due to max size
+    int max = checkMaxQueue ? maxQueue : Integer.MAX_VALUE;
+    ActorFuture r = _offer(f, coalesce, max);
+
+    // apply the policy's overflow action; dropOldest drops the new
+    // message when only held messages fill the queue
+    if (r == null && overflow != null)
+    {
+      if (overflow == QueueOverflow.dropOldest)
+        r = _dropOldest(f, coalesce, max);
+      else if (overflow == QueueOverflow.block && coalesce && Thread.currentThread() != runner)
+        r = _block(f, coalesce, max);
+
+      if (r == null && (overflow == QueueOverflow.dropNewest || overflow == QueueOverflow.dropOldest))
       {
-        ActorFuture c = queue.coalesce(f);
-        if (c != null) return c;
+        dropped.incrementAndGet();
+        f.cancel();
+        return f;
       }
+    }
 
-      // check queue size
-      if (queue.size+1 > (int)pool.maxQueue && checkMaxQueue)
+    if (r == null)
+    {
+      f.completeErr(QueueOverflowErr.make("queueSize: " + queue.size()));
+      return f;
+    }
+
+    // if held for its window, then it is queued when released
+    if (r == CoalescingQueue.nowHeld) return f;
+
+    // if coalesced, then the original is already queued
+    if (r != f) return r;
+
+    _enqueued();
+    return f;
+  }
+
+  /**
+   * Add to the queue or, if coalescing by time window, either merge with
+   * the message held for its key or hold it and schedule its release to
+   * the queue.  Return null if full, which counts held messages, or
+   * CoalescingQueue.nowHeld if the future is now held.
+   */
+  private ActorFuture _offer(ActorFuture f, boolean coalesce, int max)
+  {
+    if (window != null && coalesce)
+    {
+      ActorFuture h = ((CoalescingQueue)queue).hold(f, max);
+      if (h == f) { pool.schedule(window, new Release(this, f)); return CoalescingQueue.nowHeld; }
+      if (h != CoalescingQueue.notHeld) return h;
+    }
+    return queue.add(f, coalesce, max);
+  }
+
+  private void _enqueued()
+  {
+    // check if we just crossed the high watermark
+    if (highWatermark > 0 && queue.size() >= highWatermark && queueHigh.compareAndSet(false, true))
+      _watermark(true);
+
+    // submit to thread pool if not submitted or current running
+    if (submitted.compareAndSet(false, true)) pool.submit(this);
+  }
+
+  /**
+   * Called by the scheduler once a held message's window has elapsed.
+   */
+  final void _release(ActorFuture f)
+  {
+    if (((CoalescingQueue)queue).release(f)) _enqueued();
+  }
+
+  /**
+   * Release is the scheduler work for a held message's window.
+   */
+  static final class Release implements Scheduler.Work
+  {
+    Release(Actor a, ActorFuture f) { actor = a; future = f; }
+    public String toString() { return "Release msg=" + future.msg; }
+    public void work() { actor._release(future); }
+    public void cancel() { future.cancel(); }
+    final Actor actor;
+    final ActorFuture future;
+  }
+
+  private ActorFuture _dropOldest(ActorFuture f, boolean coalesce, int max)
+  {
+    // evict the head until our add succeeds; evicted futures are
+    // cancelled outside of the queue lock
+    LockedQueue q = (LockedQueue)queue;
+    while (true)
+    {
+      ActorFuture oldest = q.evict(max);
+      if (oldest != null)
       {
-        f.completeErr(QueueOverflowErr.make("queueSize: " + queue.size));
-        return f;
+        dropped.incrementAndGet();
+        oldest.cancel();
       }
+      ActorFuture r = _offer(f, coalesce, max);
+      if (r != null) return r;
 
-      // add to queue
-      queue.add(f);
+      // nothing is left to evict when held messages fill the queue
+      if (oldest == null && q.size() == 0) return null;
+    }
+  }
 
-      // submit to thread pool if not submitted or current running
-      if (!submitted)
+  private ActorFuture _block(ActorFuture f, boolean coalesce, int max)
+  {
+    // wait for the consumer to signal room in the queue
+    long deadline = System.nanoTime() + policy.blockTimeout().ticks();
+    synchronized (space)
+    {
+      blocked++;
+      try
+      {
+        while (true)
+        {
+          if (pool.isStopped()) return null;
+          ActorFuture r = _offer(f, coalesce, max);
+          if (r != null) return r;
+          long left = deadline - System.nanoTime();
+          if (left <= 0L) return null;
+          space.wait(left / 1000000L, (int)(left % 1000000L));
+        }
+      }
+      catch (InterruptedException e)
       {
-        submitted = true;
-        pool.submit(this);
+        throw InterruptedErr.make(e);
       }
+      finally
+      {
+        blocked--;
+      }
+    }
+  }
 
-      return f;
+  private ActorFuture _next()
+  {
+    ActorFuture f = queue.get();
+    if (f == null) return null;
+
+    // wake senders blocked on a full queue
+    if (blocked > 0) synchronized (space) { space.notifyAll(); }
+
+    // check if we just drained to the low watermark
+    if (highWatermark > 0 && queue.size() <= lowWatermark && queueHigh.get() && queueHigh.compareAndSet(true, false))
+      _watermark(false);
+
+    return f;
+  }
+
+  private void _watermark(boolean high)
+  {
+    if (onWatermark == null) return;
+    try
+    {
+      onWatermark.call(this, Boolean.valueOf(high));
+    }
+    catch (Throwable e)
+    {
+      e.printStackTrace();
     }
   }
 
   public final void _work()
   {
     // reset environment for this actor
+    runner = Thread.currentThread();
     locals.set(context.locals);
     Locale.setCur(context.locale);
 
+    // register with watchdog if enabled
+    ActorPool.Watchdog watchdog = pool.watchdog;
+    if (watchdog != null) watchdog.running.add(this);
+
     // process messages for maxTimeBeforeYield before yielding the thread
     long maxTicks = pool.maxTimeBeforeYield.ticks();
     long startTicks = Duration.nowTicks();
+    int maxBatch = (int)Math.min(maxBatchSize(), 1_000_000L);
+    this.events = ActorEvents.recording;
     while (true)
     {
-      // get next message, or if none pending we are done
-      ActorFuture future = null;
-      synchronized (lock) { future = queue.get(); }
-      if (future == null) break;
-
-      // dispatch the messge
-      this.curMsg = future.msg;
-      _dispatch(future);
-      this.curMsg = idleMsg;
+      if (maxBatch <= 1)
+      {
+        // get next message, or if none pending we are done
+        ActorFuture future = _next();
+        if (future == null) break;
+
+        // dispatch the messge
+        this.curMsg = future.msg;
+        if (watchdog != null) dispatchTicks = Duration.nowTicks();
+        _dispatch(future);
+        if (watchdog != null) dispatchTicks = 0;
+        this.curMsg = idleMsg;
+      }
+      else
+      {
+        // get up to maxBatch messages, or if none pending we are done
+        if (batch == null || batch.length < maxBatch) batch = new ActorFuture[maxBatch];
+        int n = 0;
+        while (n < maxBatch)
+        {
+          ActorFuture future = _next();
+          if (future == null) break;
+          batch[n++] = future;
+        }
+        if (n == 0) break;
+
+        // dispatch the batch
+        this.curMsg = batch[0].msg;
+        if (watchdog != null) dispatchTicks = Duration.nowTicks();
+        _dispatchBatch(batch, n);
+        if (watchdog != null) dispatchTicks = 0;
+        this.curMsg = idleMsg;
+      }
 
       // if there are pending actors waiting for a thread,
       // then check if its time to yield our thread
       if (pool.hasPending())
       {
         long curTicks = Duration.nowTicks();
-        if (curTicks - startTicks >= maxTicks) break;
+        if (curTicks - startTicks >= maxTicks)
+        {
+          if (events) ActorEvents.yielded(this, curTicks - startTicks);
+          break;
+        }
       }
     }
 
@@ -265,22 +520,15 @@ public class Actor
 
     // flush environment back to context
     context.locale = Locale.cur();
-
-    // done dispatching, either clear the submitted
-    // flag or resubmit to the thread pool
-    synchronized (lock)
-    {
-      if (queue.size == 0)
-      {
-        submitted = false;
-      }
-      else
-      {
-        submitted = true;
-        pool.submit(this);
-      }
-    }
-
+    if (watchdog != null) watchdog.running.remove(this);
+    runner = null;
+
+    // done dispatching, clear the submitted flag; then if a producer
+    // enqueued a message before it could observe the cleared flag we
+    // race it to resubmit ourselves (the CAS ensures only one wins)
+    submitted.set(false);
+    if (queue.size() > 0 && submitted.compareAndSet(false, true))
+      pool.submit(this);
   }
 
   final void _dispatch(ActorFuture future)
@@ -289,7 +537,9 @@ public class Actor
     {
       if (future.isCancelled()) return;
       if (pool.killed) { future.cancel(); return; }
+      if (future.deadline != 0L && _expired(future, Duration.nowTicks())) return;
       receiveCount++;
+      if (events || receiveTimes != null) { _dispatchMeasured(future); return; }
       future.complete(receive(future.msg));
     }
     catch (Err e)
@@ -302,20 +552,128 @@ public class Actor
     }
   }
 
-  public void _kill()
+  /**
+   * Dispatch a message while recording its latency in our
+   * histograms and/or emitting a flight recorder event.
+   */
+  private void _dispatchMeasured(ActorFuture future)
   {
-    // get/reset the pending queue
-    Queue queue = null;
-    synchronized (lock)
+    ActorEvents.Dispatch event = events ? ActorEvents.dispatch(future.enqueueTicks) : null;
+    long start = receiveTimes != null ? Duration.nowTicks() : 0L;
+    if (start != 0L) _recordWait(future, start);
+    Object result;
+    try { result = receive(future.msg); }
+    finally
     {
-      queue = this.queue;
-      this.queue = new Queue();
+      if (event != null) event.finish(this, 1);
+      if (start != 0L) _recordReceive(Duration.nowTicks() - start, 1);
     }
+    future.complete(result);
+  }
+
+  private void _recordWait(ActorFuture future, long now)
+  {
+    if (future.enqueueTicks == 0L) return;
+    long ticks = now - future.enqueueTicks;
+    queueWaits.record(ticks, 1L);
+    pool.queueWaits.record(ticks, 1L);
+  }
+
+  private void _recordReceive(long ticks, int n)
+  {
+    receiveTimes.record(ticks / n, n);
+    pool.receiveTimes.record(ticks / n, n);
+  }
+
+  final void _dispatchBatch(ActorFuture[] batch, int n)
+  {
+    // filter out cancelled and expired messages, and clear batch as we go
+    ActorFuture[] futures = new ActorFuture[n];
+    List msgs = List.make(Sys.ObjType.toNullable(), n);
+    int num = 0;
+    long now = 0L;
+    for (int i=0; i<n; ++i)
+    {
+      ActorFuture future = batch[i];
+      batch[i] = null;
+      if (future.isCancelled()) continue;
+      if (pool.killed) { future.cancel(); continue; }
+      if (future.deadline != 0L || queueWaits != null)
+      {
+        if (now == 0L) now = Duration.nowTicks();
+        if (future.deadline != 0L && _expired(future, now)) continue;
+        if (queueWaits != null) _recordWait(future, now);
+      }
+      futures[num++] = future;
+      msgs.add(future.msg);
+    }
+    if (num == 0) return;
+
+    // process the batch
+    List results;
+    try
+    {
+      receiveCount += num;
+      ActorEvents.Dispatch event = events ? ActorEvents.dispatch(futures[0].enqueueTicks) : null;
+      long start = receiveTimes != null ? Duration.nowTicks() : 0L;
+      try { results = receiveBatch(msgs); }
+      finally
+      {
+        if (event != null) event.finish(this, num);
+        if (start != 0L) _recordReceive(Duration.nowTicks() - start, num);
+      }
+      if (results == null || results.sz() != num)
+        throw Err.make("receiveBatch returned " + (results == null ? "null" : results.sz() + " results") + " for " + num + " msgs");
+    }
+    catch (Throwable e)
+    {
+      Err err = e instanceof Err ? (Err)e : Err.make(e);
+      for (int i=0; i<num; ++i) futures[i].completeErr(err);
+      return;
+    }
+
+    // complete each future with its own result; a BatchErr
+    // from within this pod fails only that message's future
+    for (int i=0; i<num; ++i)
+    {
+      ActorFuture future = futures[i];
+      try
+      {
+        Object r = results.get(i);
+        if (r instanceof BatchErr) future.completeErr(((BatchErr)r).err());
+        else future.complete(r);
+      }
+      catch (Err e)
+      {
+        future.completeErr(e);
+      }
+      catch (Throwable e)
+      {
+        future.completeErr(Err.make(e));
+      }
+    }
+  }
+
+  /**
+   * If the future's deadline has passed then cancel it and return true.
+   */
+  private boolean _expired(ActorFuture future, long now)
+  {
+    if (now - future.deadline < 0L) return false;
+    shed++;
+    future.cancel();
+    return true;
+  }
+
+  public void _kill()
+  {
+    // we are only killed while pending in the thread pool, so no
+    // worker is consuming our queue and we may safely drain it here
 
     // cancel all pending messages
     while (true)
     {
-      Future future = queue.get();
+      Future future = _next();
       if (future == null) break;
       future.cancel();
     }
@@ -330,25 +688,81 @@ public class Actor
 // Queue
 //////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Queue is a lock-free multi-producer, single-consumer queue which
+   * uses ActorFuture.next as an intrusive linked list (Vyukov's MPSC
+   * algorithm).  Any thread may call add, but only the thread currently
+   * running the actor may call get.  Producers only contend on a single
+   * getAndSet of the tail and on the size counter.
+   */
   static class Queue
   {
-    public ActorFuture get()
+    Queue()
     {
-      if (head == null) return null;
-      ActorFuture f = head;
-      head = f.next;
-      if (head == null) tail = null;
-      f.next = null;
-      size--;
+      this.head = stub;
+      this.tail = new AtomicReference(stub);
+    }
+
+    /**
+     * Add future to the tail of the queue.  Return the future itself
+     * if added, the original future if the message was coalesced, or
+     * null if the queue already contains max messages.
+     */
+    public ActorFuture add(ActorFuture f, boolean coalesce, int max)
+    {
+      // reserve a slot first so max is never exceeded
+      int s = size.incrementAndGet();
+      if (s > max)
+      {
+        size.decrementAndGet();
+        return null;
+      }
+
+      // update peak stat
+      while (true)
+      {
+        int p = peak.get();
+        if (s <= p || peak.compareAndSet(p, s)) break;
+      }
+
+      push(f);
       return f;
     }
 
-    public void add(ActorFuture f)
+    /**
+     * Remove the future at the head of the queue or return
+     * null if empty.  Must only be called by the consumer.
+     */
+    public ActorFuture get()
     {
-      if (tail == null) { head = tail = f; f.next = null; }
-      else { tail.next = f; tail = f; }
-      size++;
-      if (size > peak) peak = size;
+      ActorFuture h = head;
+      ActorFuture next = h.next;
+
+      // skip the stub node
+      if (h == stub)
+      {
+        if (next == null)
+        {
+          if (tail.get() == stub) return null;
+          next = awaitNext(stub);
+        }
+        head = h = next;
+        next = h.next;
+      }
+
+      // if h is the last node, then push the stub behind it so that
+      // we can safely unlink h; otherwise a producer has swapped the
+      // tail but not linked it yet, so spin for the link
+      if (next == null)
+      {
+        if (tail.get() == h) push(stub);
+        next = awaitNext(h);
+      }
+
+      head = next;
+      h.next = null;
+      size.decrementAndGet();
+      return h;
     }
 
     public ActorFuture coalesce(ActorFuture f)
@@ -356,36 +770,88 @@ public class Actor
       return null;
     }
 
+    final int size() { return size.get(); }
+
+    final int peak() { return peak.get(); }
+
+    final void push(ActorFuture f)
+    {
+      f.next = null;
+      ActorFuture prev = (ActorFuture)tail.getAndSet(f);
+      prev.next = f;
+    }
+
+    private static ActorFuture awaitNext(ActorFuture f)
+    {
+      ActorFuture next;
+      while ((next = f.next) == null) Thread.yield();
+      return next;
+    }
+
     void dump(fan.sys.OutStream out)
     {
       int num = 0;
       int max = 50;
       for (ActorFuture x = head; x != null; x = x.next)
       {
+        if (x == stub) continue;
         if (num < max) out.print("  ").printLine(x.msg);
         num++;
       }
       if (num > max) out.print("  " + (num-max) + " more messages...");
     }
 
-    ActorFuture head, tail;
-    int size;
-    int peak;
+    private final ActorFuture stub = new ActorFuture(null);
+    private final AtomicReference tail;                       // producer end
+    private ActorFuture head;                                 // consumer end
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// LockedQueue
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * LockedQueue serializes add and get under the queue's monitor,
+   * which allows threads other than the consumer to remove messages.
+   */
+  static class LockedQueue extends Queue
+  {
+    public synchronized ActorFuture add(ActorFuture f, boolean coalesce, int max)
+    {
+      return super.add(f, coalesce, max);
+    }
+
+    public synchronized ActorFuture get()
+    {
+      return super.get();
+    }
+
+    /**
+     * Remove and return the oldest future if the queue
+     * contains max messages, otherwise return null.
+     */
+    synchronized ActorFuture evict(int max)
+    {
+      return size() >= max ? get() : null;
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
 // CoalescingQueue
 //////////////////////////////////////////////////////////////////////////
 
-  static class CoalescingQueue extends Queue
+  static class CoalescingQueue extends LockedQueue
   {
-    CoalescingQueue(Func toKeyFunc, Func coalesceFunc)
+    CoalescingQueue(Func toKeyFunc, Func coalesceFunc, boolean onlyWhenFull)
     {
       this.toKeyFunc = toKeyFunc;
       this.coalesceFunc = coalesceFunc;
+      this.onlyWhenFull = onlyWhenFull;
     }
 
-    public ActorFuture get()
+    public synchronized ActorFuture get()
     {
       ActorFuture f = super.get();
       if (f != null)
@@ -393,7 +859,7 @@ public class Actor
         try
         {
           Object key = toKey(f.msg);
-          if (key != null) pending.remove(key);
+          if (key != null) pending.remove(key, f);
         }
         catch (Throwable e)
         {
@@ -403,8 +869,22 @@ public class Actor
       return f;
     }
 
-    public void add(ActorFuture f)
+    synchronized ActorFuture evict(int max)
     {
+      return size() + held >= max ? get() : null;
+    }
+
+    public synchronized ActorFuture add(ActorFuture f, boolean coalesce, int max)
+    {
+      // attempt to coalesce
+      if (coalesce && !onlyWhenFull)
+      {
+        ActorFuture c = coalesce(f);
+        if (c != null) return c;
+      }
+
+      ActorFuture r = super.add(f, coalesce, max);
+      if (r == null) return coalesce && onlyWhenFull ? coalesce(f) : null;
       try
       {
         Object key = toKey(f.msg);
@@ -414,7 +894,56 @@ public class Actor
       {
         e.printStackTrace();
       }
-      super.add(f);
+      return r;
+    }
+
+    /**
+     * Hold the future for a coalescing window: return the held or queued
+     * future it was merged into, the future itself if it is now held,
+     * null if the queue is full, or notHeld if it has no key.  A
+     * cancelled future is never merged into; the new one replaces it.
+     */
+    synchronized ActorFuture hold(ActorFuture f, int max)
+    {
+      Object key = toKey(f.msg);
+      if (key == null) return notHeld;
+
+      ActorFuture orig = (ActorFuture)pending.get(key);
+      if (orig != null && !orig.isCancelled())
+      {
+        orig.msg = coalesce(orig.msg, f.msg);
+        return orig;
+      }
+
+      if (size() + held >= max) return null;
+      held++;
+      pending.put(key, f);
+      return f;
+    }
+
+    /**
+     * Move a held future onto the queue once its window has elapsed.
+     * It remains in pending so it continues to coalesce until dequeued.
+     * Return false if the future was cancelled while held.
+     */
+    synchronized boolean release(ActorFuture f)
+    {
+      held--;
+      if (f.isCancelled())
+      {
+        try
+        {
+          Object key = toKey(f.msg);
+          if (key != null) pending.remove(key, f);
+        }
+        catch (Throwable e)
+        {
+          e.printStackTrace();
+        }
+        return false;
+      }
+      super.add(f, false, Integer.MAX_VALUE);
+      return true;
     }
 
     public ActorFuture coalesce(ActorFuture incoming)
@@ -423,7 +952,7 @@ public class Actor
       if (key == null) return null;
 
       ActorFuture orig = (ActorFuture)pending.get(key);
-      if (orig == null) return null;
+      if (orig == null || orig.isCancelled()) return null;
 
       orig.msg = coalesce(orig.msg, incoming.msg);
       return orig;
@@ -439,8 +968,13 @@ public class Actor
       return coalesceFunc == null ? incoming : coalesceFunc.call(orig, incoming);
     }
 
+    static final ActorFuture notHeld = new ActorFuture(null);
+    static final ActorFuture nowHeld = new ActorFuture(null);
+
     Func toKeyFunc, coalesceFunc;
+    final boolean onlyWhenFull;
     HashMap pending = new HashMap();
+    int held;
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -466,17 +1000,51 @@ public class Actor
       out.printLine("Actor");
       out.printLine("  pool:      " + pool.name);
       out.printLine("  state:     " + threadState());
-      out.printLine("  queue:     " + queueSize() + " (peak " + queuePeak() + ")");
+      out.printLine("  queue:     " + queueSize() + " (peak " + queuePeak() + ", max " + maxQueue + ")");
+      if (policy != null)
+      {
+        out.printLine("  overflow:  " + overflow + " (dropped " + dropped.get() + ")");
+        if (highWatermark > 0)
+          out.printLine("  watermark: " + lowWatermark + "/" + highWatermark + (queueHigh.get() ? " (high)" : ""));
+        if (window != null)
+          out.printLine("  window:    " + window + " (held " + ((CoalescingQueue)queue).held + ")");
+      }
+      if (maxAge > 0L || shed > 0L)
+        out.printLine("  shed:      " + shed + (maxAge > 0L ? " (maxAge " + Duration.make(maxAge).toLocale() + ")" : ""));
       out.printLine("  received:  " + receiveCount());
       out.printLine("  ticks:     " + ticksTotal.toLocale() + " (avg " + ticksAvg.toLocale() + ")");
+      if (queueWaits != null)
+      {
+        out.printLine("  queueWait: " + queueWaits);
+        out.printLine("  receive:   " + receiveTimes);
+      }
       if (curMsg != idleMsg)
         out.printLine("  curMsg:    " + curMsg);
+      long start = dispatchTicks;
+      if (start != 0)
+        out.printLine("  curTime:   " + Duration.make(Duration.nowTicks() - start).toLocale());
       queue.dump(out);
     }
     catch (Exception e) { out.printLine("  " + e + "\n"); }
     return out;
   }
 
+  /** Current message for diagnostics, truncated to a reasonable length */
+  final String curMsgToStr()
+  {
+    try
+    {
+      Object msg = curMsg;
+      if (msg == idleMsg) return "idle";
+      String s = String.valueOf(msg);
+      return s.length() <= 200 ? s : s.substring(0, 200) + "...";
+    }
+    catch (Throwable e)
+    {
+      return e.toString();
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Context
 //////////////////////////////////////////////////////////////////////////
@@ -498,10 +1066,29 @@ public class Actor
   final Context context;                 // mutable world state of actor
   private ActorPool pool;                // pooled controller
   private Func receive;                  // func to invoke on receive or null
-  private Object lock = new Object();    // lock for message queue
-  private Queue queue;                   // message queue linked list
+  private Queue queue;                   // pending message queue
+  private int maxQueue;                  // resolved from policy or pool
+  private QueuePolicy policy;            // overflow policy or null
+  private QueueOverflow overflow;        // policy.overflow or null
+  private int highWatermark;             // zero if watermarks disabled
+  private int lowWatermark;              // queue size to clear queueHigh
+  private Func onWatermark;              // watermark callback or null
+  private Duration window;               // coalescing window or null
+  private LatencyHistogram queueWaits;   // if pool.latencyHistograms
+  private LatencyHistogram receiveTimes; // if pool.latencyHistograms
+  private long maxAge;                   // max message age in ticks or zero
+  private final AtomicBoolean queueHigh = new AtomicBoolean(); // above high watermark
+  private final AtomicLong dropped = new AtomicLong();          // messages dropped by overflow
+  private final Object space = new Object(); // monitor for senders blocked on full queue
+  private volatile int blocked;          // number of senders waiting on space
+  volatile Thread runner;                // thread running _work or null
+  volatile long dispatchTicks;           // start of current dispatch if watchdog enabled
+  long stallReported;                    // dispatchTicks of last stall reported by watchdog
   private Object curMsg = idleMsg;       // if currently processing a message
-  private boolean submitted = false;     // is actor submitted to thread pool
-  private int receiveCount;              // total number of messages received
+  private ActorFuture[] batch;           // reused buffer for receiveBatch
+  private boolean events;                // if flight recording during _work
+  private final AtomicBoolean submitted = new AtomicBoolean(); // is actor submitted to thread pool
+  private long receiveCount;             // total number of messages received
+  private volatile long shed;            // total number of expired messages cancelled
   private long receiveTicks;             // total ticks spend in receive
 }
\ No newline at end of file
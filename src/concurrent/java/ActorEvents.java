@@ -0,0 +1,337 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ActorEvents defines the Java Flight Recorder events emitted by the
+ * actor runtime.  Callers check the 'recording' flag before emitting
+ * any event, so when no recording is running the cost is one volatile
+ * read.  This class never refers to jdk.jfr types directly so that the
+ * pod still compiles and runs on Java 8: the events are defined with
+ * jdk.jfr.EventFactory through the Jfr bridge, which is only loaded
+ * when jdk.jfr.FlightRecorder is present at runtime.
+ */
+final class ActorEvents
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Recording
+//////////////////////////////////////////////////////////////////////////
+
+  /** True while any flight recording is running */
+  static volatile boolean recording;
+
+  /** Reflective bridge to jdk.jfr or null if not available */
+  private static final Jfr jfr;
+
+  static
+  {
+    Jfr x = null;
+    try
+    {
+      Class.forName("jdk.jfr.FlightRecorder");
+      x = new Jfr();
+    }
+    catch (Throwable e)
+    {
+      // JFR is not available in this runtime, leave recording false
+    }
+    jfr = x;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Dispatch
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Begin a dispatch event for a message enqueued at the given
+   * ticks, or zero if it was enqueued before recording started.
+   */
+  static Dispatch dispatch(long enqueueTicks)
+  {
+    if (jfr == null) return null;
+    Object event = jfr.begin(jfr.dispatch);
+    if (event == null) return null;
+    long queueWait = enqueueTicks == 0L ? Long.MIN_VALUE : System.nanoTime() - enqueueTicks;
+    return new Dispatch(event, queueWait);
+  }
+
+  /**
+   * Dispatch wraps an in progress "Actor Dispatch" event.
+   */
+  static final class Dispatch
+  {
+    Dispatch(Object event, long queueWait)
+    {
+      this.event = event;
+      this.queueWait = queueWait;
+    }
+
+    void finish(Actor actor, int n)
+    {
+      jfr.end(event);
+      jfr.commit(event, actor.typeof().qname(), actor.pool().name, Integer.valueOf(n), Long.valueOf(queueWait));
+    }
+
+    private final Object event;
+    private final long queueWait;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Yield
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Emit a yield event when an actor gives up its thread.
+   */
+  static void yielded(Actor actor, long runTicks)
+  {
+    if (jfr == null) return;
+    Object event = jfr.make(jfr.yielded);
+    if (event == null) return;
+    jfr.commit(event, actor.typeof().qname(), actor.pool().name, Long.valueOf(actor.queueSize()), Long.valueOf(runTicks));
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Submit
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Emit a submit event for work given to a thread pool.
+   */
+  static void submit(String pool, ThreadPool.Work work, String disposition, int pending, int workers)
+  {
+    if (jfr == null) return;
+    Object event = jfr.make(jfr.submit);
+    if (event == null) return;
+    String actorType = work instanceof Actor ? ((Actor)work).typeof().qname() : work.getClass().getName();
+    jfr.commit(event, pool, actorType, disposition, Integer.valueOf(pending), Integer.valueOf(workers));
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Scheduled
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Run scheduled work which was due at the given deadline ticks
+   * and emit an event covering its execution.
+   */
+  static void runScheduled(String pool, Scheduler.Work work, long deadline)
+  {
+    long lateness = System.nanoTime() - deadline;
+    Object event = jfr == null ? null : jfr.begin(jfr.scheduled);
+    try
+    {
+      work.work();
+    }
+    finally
+    {
+      if (event != null)
+      {
+        jfr.end(event);
+        jfr.commit(event, pool, work.getClass().getSimpleName(), Long.valueOf(lateness));
+      }
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Jfr
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Jfr is the reflective bridge to the jdk.jfr API.  Each event type
+   * is created with EventFactory from annotation and field descriptors,
+   * and the recorder listener is a dynamic proxy.  Field values are
+   * passed to commit in the order the fields are declared.  Any error
+   * talking to jdk.jfr drops the event rather than failing the actor.
+   */
+  static final class Jfr implements InvocationHandler
+  {
+    Jfr() throws Exception
+    {
+      Class factoryCls  = Class.forName("jdk.jfr.EventFactory");
+      Class annoCls     = Class.forName("jdk.jfr.AnnotationElement");
+      Class valueCls    = Class.forName("jdk.jfr.ValueDescriptor");
+      Class eventCls    = Class.forName("jdk.jfr.Event");
+      Class recorderCls = Class.forName("jdk.jfr.FlightRecorder");
+      Class listenerCls = Class.forName("jdk.jfr.FlightRecorderListener");
+
+      annoCtor     = annoCls.getConstructor(Class.class, Object.class);
+      valueCtor    = valueCls.getConstructor(Class.class, String.class, List.class);
+      create       = factoryCls.getMethod("create", List.class, List.class);
+      newEvent     = factoryCls.getMethod("newEvent");
+      begin        = eventCls.getMethod("begin");
+      end          = eventCls.getMethod("end");
+      shouldCommit = eventCls.getMethod("shouldCommit");
+      set          = eventCls.getMethod("set", int.class, Object.class);
+      commit       = eventCls.getMethod("commit");
+      getRecorder  = recorderCls.getMethod("getFlightRecorder");
+      getRecordings = recorderCls.getMethod("getRecordings");
+      getState     = Class.forName("jdk.jfr.Recording").getMethod("getState");
+
+      dispatch = event("fan.concurrent.ActorDispatch", "Actor Dispatch",
+        "Actor processing a message or batch of messages in receive",
+        field(String.class, "actorType", "Actor Type", null, false),
+        field(String.class, "pool",      "Pool",       null, false),
+        field(int.class,    "messages",  "Messages",   null, false),
+        field(long.class,   "queueWait", "Queue Wait", "Time the first message waited in the queue", true));
+
+      yielded = event("fan.concurrent.ActorYield", "Actor Yield",
+        "Actor yielded its thread to pending actors after ActorPool.maxTimeBeforeYield",
+        field(String.class, "actorType", "Actor Type", null, false),
+        field(String.class, "pool",      "Pool",       null, false),
+        field(long.class,   "queueSize", "Queue Size", null, false),
+        field(long.class,   "runTime",   "Run Time",   null, true));
+
+      submit = event("fan.concurrent.PoolSubmit", "Pool Submit",
+        "Actor submitted to its pool to be given a thread",
+        field(String.class, "pool",        "Pool",        null, false),
+        field(String.class, "actorType",   "Actor Type",  null, false),
+        field(String.class, "disposition", "Disposition", "idle if run by an idle thread, spawn if run by a new thread, or queued", false),
+        field(int.class,    "pending",     "Pending",     null, false),
+        field(int.class,    "workers",     "Workers",     null, false));
+
+      scheduled = event("fan.concurrent.ScheduledWork", "Scheduled Work",
+        "Work run by the pool scheduler such as sendLater delivery",
+        field(String.class, "pool",     "Pool",     null, false),
+        field(String.class, "work",     "Work",     null, false),
+        field(long.class,   "lateness", "Lateness", "Time between the deadline and when the work ran", true));
+
+      // track whether any recording is running
+      Object listener = Proxy.newProxyInstance(listenerCls.getClassLoader(), new Class[] { listenerCls }, this);
+      recorderCls.getMethod("addListener", listenerCls).invoke(null, listener);
+    }
+
+    private Object event(String name, String label, String desc, Object... fields)
+      throws Exception
+    {
+      List annos = new ArrayList();
+      annos.add(anno("Name", name));
+      annos.add(anno("Label", label));
+      annos.add(anno("Category", new String[] { "Fantom", "Concurrent" }));
+      annos.add(anno("Description", desc));
+      annos.add(anno("StackTrace", Boolean.FALSE));
+      return create.invoke(null, annos, Arrays.asList(fields));
+    }
+
+    private Object field(Class type, String name, String label, String desc, boolean nanos)
+      throws Exception
+    {
+      List annos = new ArrayList();
+      annos.add(anno("Label", label));
+      if (desc != null) annos.add(anno("Description", desc));
+      if (nanos) annos.add(anno("Timespan", "NANOSECONDS"));
+      return valueCtor.newInstance(type, name, annos);
+    }
+
+    private Object anno(String name, Object val)
+      throws Exception
+    {
+      return annoCtor.newInstance(Class.forName("jdk.jfr." + name), val);
+    }
+
+    /** Make a new event of the given factory, or null on error */
+    Object make(Object factory)
+    {
+      try
+      {
+        return newEvent.invoke(factory);
+      }
+      catch (Throwable e)
+      {
+        return null;
+      }
+    }
+
+    /** Make and begin timing a new event, or null on error */
+    Object begin(Object factory)
+    {
+      try
+      {
+        Object event = newEvent.invoke(factory);
+        begin.invoke(event);
+        return event;
+      }
+      catch (Throwable e)
+      {
+        return null;
+      }
+    }
+
+    void end(Object event)
+    {
+      try
+      {
+        end.invoke(event);
+      }
+      catch (Throwable e)
+      {
+        // drop the event
+      }
+    }
+
+    /** Set the field values in declared order and commit */
+    void commit(Object event, Object... vals)
+    {
+      try
+      {
+        if (!((Boolean)shouldCommit.invoke(event)).booleanValue()) return;
+        for (int i=0; i<vals.length; ++i)
+          set.invoke(event, Integer.valueOf(i), vals[i]);
+        commit.invoke(event);
+      }
+      catch (Throwable e)
+      {
+        // drop the event
+      }
+    }
+
+    /** FlightRecorderListener callbacks */
+    public Object invoke(Object proxy, Method m, Object[] args)
+    {
+      String name = m.getName();
+      if (name.equals("hashCode")) return Integer.valueOf(System.identityHashCode(proxy));
+      if (name.equals("equals")) return Boolean.valueOf(proxy == args[0]);
+      if (name.equals("toString")) return "ActorEvents.Listener";
+      update();
+      return null;
+    }
+
+    private void update()
+    {
+      try
+      {
+        boolean running = false;
+        Object recorder = getRecorder.invoke(null);
+        List recordings = (List)getRecordings.invoke(recorder);
+        for (int i=0; i<recordings.size(); ++i)
+          if (getState.invoke(recordings.get(i)).toString().equals("RUNNING")) running = true;
+        recording = running;
+      }
+      catch (Throwable e)
+      {
+        recording = false;
+      }
+    }
+
+    private final Constructor annoCtor, valueCtor;
+    private final Method create, newEvent, begin, end, shouldCommit, set, commit;
+    private final Method getRecorder, getRecordings, getState;
+    final Object dispatch, yielded, submit, scheduled;
+  }
+
+}
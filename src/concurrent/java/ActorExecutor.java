@@ -0,0 +1,86 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+package fan.concurrent;
+
+/**
+ * ActorExecutor is the base class for the strategies an ActorPool
+ * may use to execute its actors on threads.
+ */
+abstract class ActorExecutor
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Has this pool been stopped or killed.
+   */
+  abstract boolean isStopped();
+
+  /**
+   * Has all the work in this queue finished processing and
+   * all threads terminated.
+   */
+  abstract boolean isDone();
+
+  /**
+   * Orderly shutdown of threads.  All pending work items are processed.
+   */
+  abstract void stop();
+
+  /**
+   * Unorderly shutdown of threads.  All pending work are discarded,
+   * and interrupt is sent to each thread.
+   */
+  abstract void kill();
+
+  /**
+   * Wait for all threads to stop.
+   * Return true on success or false on timeout.
+   */
+  abstract boolean join(long msTimeout) throws InterruptedException;
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return if we have pending work awaiting a thread.
+   */
+  abstract boolean hasPending();
+
+  /**
+   * Submit the given work to be run by a thread in this pool.
+   */
+  abstract void submit(ThreadPool.Work work);
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  abstract void dump(fan.sys.OutStream out);
+
+  /**
+   * Print one line for a thread and the work it is running or null if idle.
+   */
+  static void dumpThread(fan.sys.OutStream out, String name, ThreadPool.Work work)
+  {
+    out.print("  ").print(name).print(": ");
+    if (work == null)
+      out.print("idle");
+    else
+      out.print(work);
+    if (work instanceof Actor)
+    {
+      Actor actor = (Actor)work;
+      out.print(" [queue: ").print(actor.queueSize()).print("]");
+    }
+    out.printLine();
+  }
+}
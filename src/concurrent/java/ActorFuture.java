@@ -9,8 +9,16 @@
 package fan.concurrent;
 
 import fan.sys.*;
-import java.util.concurrent.TimeUnit;
-import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
 
 /**
  * ActorFuture is future implementation used by actor framework
@@ -55,6 +63,7 @@ public final class ActorFuture
     switch(state)
     {
       case PENDING:     return FutureStatus.pending;
+      case COMPLETING:  return FutureStatus.pending;
       case DONE_OK:     return FutureStatus.ok;
       case DONE_ERR:    return FutureStatus.err;
       case DONE_CANCEL: return FutureStatus.cancelled;
@@ -70,194 +79,565 @@ public final class ActorFuture
   public final Object get() { return get(null); }
   public final Object get(Duration timeout)
   {
-    Object r = null;
+    // wait until we enter a done state
+    await(timeout);
+    int state = this.state;
+
+    // if canceled throw CancelErr
+    if (state == DONE_CANCEL)
+      throw CancelledErr.make("Future cancelled");
+
+    // if error was raised, raise it to caller
+    if (state == DONE_ERR)
+      throw ((Err)result).rebase();
+
+    // ensure immutable or safe copy
+    return Actor._safe(result);
+  }
+
+  public final Future waitFor() { return waitFor(null); }
+  public final Future waitFor(Duration timeout)
+  {
+    await(timeout);
+    return this;
+  }
+
+  /**
+   * Park the calling thread until we enter a done state.  The waiter
+   * is pushed onto the same stack as our continuations and is unparked
+   * by whichever thread completes this future.
+   */
+  private void await(Duration timeout)
+  {
+    if ((state & DONE) != 0) return;
+
+    // compute deadline in nanos
+    long deadline = timeout == null ? 0L : System.nanoTime() + timeout.ticks();
+
+    // if we fail to push then we are already done
+    Waiter w = new Waiter(Thread.currentThread());
+    if (!push(w)) return;
     try
     {
-      synchronized (this)
+      // loop until we are done or our deadline has passed
+      while ((state & DONE) == 0)
       {
-        // wait until we enter a done state, the only notifies
-        // on this object should be from cancel, complete, or completeErr
         if (timeout == null)
         {
-          // wait forever until done
-          while ((state & DONE) == 0) wait();
+          LockSupport.park(this);
         }
         else
         {
-          // if not done, then wait with timeout and then
-          // if still not done throw a timeout exception
-          if ((state & DONE) == 0)
-          {
-            // compute deadline in millis
-            long deadline = Duration.nowMillis() + timeout.millis();
-
-            // loop until we are done or our deadline has passed
-            while ((state & DONE) == 0)
-            {
-              long left = deadline - Duration.nowMillis();
-              if (left <= 0L) break;
-              wait(left);
-            }
-
-            // if we still aren't done this is a timeout
-            if ((state & DONE) == 0) throw TimeoutErr.make("Future.get timed out");
-          }
+          // if we still aren't done this is a timeout
+          long left = deadline - System.nanoTime();
+          if (left <= 0L) throw TimeoutErr.make("Future.get timed out");
+          LockSupport.parkNanos(this, left);
         }
+        if (Thread.interrupted()) throw InterruptedErr.make();
+      }
+    }
+    finally
+    {
+      // if we timed out or were interrupted, remove our dead waiter
+      // so polling a long running future doesn't grow its stack
+      w.thread = null;
+      if ((state & DONE) == 0) unlink();
+    }
+  }
 
-        // if canceled throw CancelErr
-        if (state == DONE_CANCEL)
-          throw CancelledErr.make("Future cancelled");
+  public final void cancel()
+  {
+    finish(DONE_CANCEL, null);
+    msg = null;  // allow gc
+
+    // if scheduled via sendLater, then remove from the scheduler now
+    // rather than letting it occupy the queue until its deadline
+    Scheduler.Node s = scheduled;
+    if (s != null) { scheduled = null; s.cancel(); }
+  }
+
+  public final Future complete(Object r)
+  {
+    r = Actor._safe(r);
+    if (!finish(DONE_OK, r) && awaitFinish() != DONE_CANCEL)
+      throw Err.make("Future already complete");
+    return this;
+  }
+
+  public final Future completeErr(Err e)
+  {
+    if (!finish(DONE_ERR, e) && awaitFinish() != DONE_CANCEL)
+      throw Err.make("Future already complete");
+    return this;
+  }
 
-        // if error was raised, raise it to caller
-        if (state == DONE_ERR)
-          throw ((Err)result).rebase();
+  /**
+   * Attempt to transition from pending to the given done state.  Only
+   * one thread can win the CAS to the completing state, it then publishes
+   * the result with a volatile write of the done state and runs the
+   * continuations.  Return false if already done or being completed.
+   */
+  private boolean finish(int done, Object r)
+  {
+    if (!stateUpdater.compareAndSet(this, PENDING, COMPLETING)) return false;
+    this.result = r;
+    this.state = done;
+    fire();
+    return true;
+  }
 
-        // assign result to local variable for return
-        r = result;
+  /**
+   * Return the done state once a concurrent finish has published it.
+   */
+  private int awaitFinish()
+  {
+    int s;
+    while ((s = state) == COMPLETING) Thread.yield();
+    return s;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Continuations
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Register an onComplete, map, or flatMap callback to run on the given
+   * pool (or the completing thread if pool is null) once src completes.
+   * Return src for onComplete, otherwise the future of the mapped result.
+   */
+  static Future then(int kind, Future src, ActorPool pool, Func f)
+  {
+    if (pool != null && pool.isStopped()) throw Err.make("ActorPool is stopped [" + pool.name + "]");
+    f = (Func)f.toImmutable();
+    ActorFuture dst = kind == ON_COMPLETE ? null : new ActorFuture(null);
+    toActorFuture(src).whenComplete(new Callback(kind, src, pool, f, dst));
+    return dst == null ? src : dst;
+  }
+
+  static ActorFuture toActorFuture(Future f)
+  {
+    if (f instanceof ActorFuture) return (ActorFuture)f;
+    Future wraps = f.wraps();
+    if (wraps instanceof ActorFuture) return (ActorFuture)wraps;
+    throw ArgErr.make("Only actor Futures supported for continuations");
+  }
+
+  final void sendWhenDone(Actor a, ActorFuture f)
+  {
+    whenComplete(new WhenDone(a, f));
+  }
+
+  /**
+   * Push the continuation to run when done, or if we are
+   * already done then run it immediately.
+   */
+  final void whenComplete(Node node)
+  {
+    if (!push(node)) node.fire();
+  }
+
+  /**
+   * Push node onto the stack, return false if we are
+   * already done and the stack has been closed.
+   */
+  private boolean push(Node node)
+  {
+    while (true)
+    {
+      Node h = stack;
+      if (h == CLOSED) return false;
+      node.next = h;
+      if (stackUpdater.compareAndSet(this, h, node)) return true;
+    }
+  }
+
+  /**
+   * Unlink every dead node from the stack.  Only the next field of a
+   * live node is ever written, so a concurrent push, unlink, or fire
+   * never loses a live node; a race which relinks a dead node restarts
+   * the walk.  Once the stack is closed there is nothing to unlink.
+   */
+  final void unlink()
+  {
+    retry: while (true)
+    {
+      Node pred = null;
+      for (Node q = stack, s; q != null && q != CLOSED; q = s)
+      {
+        s = q.next;
+        if (!q.isDead())
+        {
+          pred = q;
+        }
+        else if (pred != null)
+        {
+          pred.next = s;
+          if (pred.isDead()) continue retry;
+        }
+        else if (!stackUpdater.compareAndSet(this, q, s))
+        {
+          continue retry;
+        }
       }
+      return;
     }
-    catch (InterruptedException e)
+  }
+
+  /**
+   * Close the stack and run the live nodes in the order they were
+   * pushed.  Nodes are copied out rather than relinked in place since
+   * a concurrent unlink may still be walking them.
+   */
+  private void fire()
+  {
+    Node h = (Node)stackUpdater.getAndSet(this, CLOSED);
+    if (h == null) return;
+    if (h.next == null) { if (!h.isDead()) fire(h); return; }
+
+    Node[] nodes = new Node[8];
+    int n = 0;
+    for (; h != null; h = h.next)
     {
-      throw InterruptedErr.make(e);
+      if (h.isDead()) continue;
+      if (n == nodes.length) nodes = java.util.Arrays.copyOf(nodes, n*2);
+      nodes[n++] = h;
     }
+    while (--n >= 0) fire(nodes[n]);
+  }
 
-    // ensure immutable or safe copy
-    return Actor._safe(r);
+  private static void fire(Node node)
+  {
+    try { node.fire(); }
+    catch (Throwable e) { e.printStackTrace(); }
   }
 
-  public final Future waitFor() { return waitFor(null); }
-  public final Future waitFor(Duration timeout)
+  /**
+   * Node is an entry in the lock-free stack of threads and
+   * continuations to run once the future is done.
+   */
+  static abstract class Node
   {
-    try
+    abstract void fire();
+    boolean isDead() { return false; }
+    volatile Node next;
+  }
+
+  static final class Waiter extends Node
+  {
+    Waiter(Thread t) { thread = t; }
+    void fire() { Thread t = thread; if (t != null) LockSupport.unpark(t); }
+    boolean isDead() { return thread == null; }
+    volatile Thread thread;
+  }
+
+  static final class WhenDone extends Node
+  {
+    WhenDone(Actor a, ActorFuture f) { actor = a; future = f; }
+    void fire() { actor._enqueueWhenDone(future); }
+    final Actor actor;
+    final ActorFuture future;
+  }
+
+  /**
+   * Callback runs an onComplete, map, or flatMap function.  It is
+   * run directly by the completing thread if pool is null, otherwise
+   * it is submitted to the pool as a unit of work.
+   */
+  static final class Callback extends Node implements ThreadPool.Work
+  {
+    Callback(int kind, Future src, ActorPool pool, Func func, ActorFuture dst)
+    {
+      this.kind = kind;
+      this.src  = src;
+      this.pool = pool;
+      this.func = func;
+      this.dst  = dst;
+    }
+
+    public String toString() { return "Future.Callback " + func; }
+
+    void fire()
+    {
+      if (pool == null) _work(); else pool.submit(this);
+    }
+
+    public void _work()
     {
-      synchronized (this)
+      try
       {
-        // wait until we enter a done state, the only notifies
-        // on this object should be from cancel, complete, or completeErr
-        if (timeout == null)
+        if (kind == ON_COMPLETE) { func.call(src); return; }
+
+        // propagate cancel and errors, otherwise apply func to the result
+        if (src.status().isCancelled()) { dst.cancel(); return; }
+        Object r = src.get();
+        if (kind == RELAY) { dst.complete(r); return; }
+        if (kind == MAP) { dst.complete(func.call(r)); return; }
+
+        // flatMap relays the returned future's outcome to dst
+        Future next = (Future)func.call(r);
+        if (next == null) throw NullErr.make("flatMap func returned null");
+        toActorFuture(next).whenComplete(new Callback(RELAY, next, null, null, dst));
+      }
+      catch (Throwable e)
+      {
+        if (dst == null) { e.printStackTrace(); return; }
+        if (dst.status().isPending()) dst.completeErr(e instanceof Err ? (Err)e : Err.make(e));
+      }
+    }
+
+    public void _kill()
+    {
+      if (dst != null) dst.cancel();
+    }
+
+    final int kind;
+    final Future src;
+    final ActorPool pool;
+    final Func func;
+    final ActorFuture dst;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Join
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Block until all the futures are done using a single Join which
+   * parks the calling thread until the last future completes, rather
+   * than waiting on each future in turn.  Futures which are not actor
+   * based are waited on individually with the time remaining.
+   */
+  static void awaitAll(List list, Duration timeout)
+  {
+    // compute deadline in nanos
+    long deadline = timeout == null ? 0L : System.nanoTime() + timeout.ticks();
+
+    // register a node on each pending future
+    int n = list.sz();
+    Join join = new Join(ALL, n + 1, Thread.currentThread(), null);
+    java.util.ArrayList others = null;
+    for (int i=0; i<n; ++i)
+    {
+      Future f = (Future)list.get(i);
+      ActorFuture af = f instanceof ActorFuture ? (ActorFuture)f : (f.wraps() instanceof ActorFuture ? (ActorFuture)f.wraps() : null);
+      if (af != null) { af.whenComplete(new JoinNode(join, f)); continue; }
+      if (others == null) others = new java.util.ArrayList();
+      others.add(f);
+      join.pending.decrementAndGet();
+    }
+
+    // release our own count, then park until the others reach zero
+    if (join.pending.decrementAndGet() > 0)
+    {
+      try
+      {
+        while (join.pending.get() > 0)
         {
-          // wait forever until done
-          while ((state & DONE) == 0) wait();
+          if (timeout == null)
+          {
+            LockSupport.park(join);
+          }
+          else
+          {
+            long left = deadline - System.nanoTime();
+            if (left <= 0L) throw TimeoutErr.make("Future.waitForAll timed out");
+            LockSupport.parkNanos(join, left);
+          }
+          if (Thread.interrupted()) throw InterruptedErr.make();
         }
-        else
+      }
+      finally
+      {
+        // if we timed out or were interrupted, remove our dead
+        // nodes from the futures which are still pending
+        if (join.pending.get() > 0)
         {
-          // if not done, then wait with timeout and then
-          // if still not done throw a timeout exception
-          if ((state & DONE) == 0)
+          join.abandoned = true;
+          for (int i=0; i<n; ++i)
           {
-            // compute deadline in millis
-            long deadline = Duration.nowMillis() + timeout.millis();
-
-            // loop until we are done or our deadline has passed
-            while ((state & DONE) == 0)
-            {
-              long left = deadline - Duration.nowMillis();
-              if (left <= 0L) break;
-              wait(left);
-            }
-
-            // if we still aren't done this is a timeout
-            if ((state & DONE) == 0) throw TimeoutErr.make("Future.get timed out");
+            Future f = (Future)list.get(i);
+            ActorFuture af = f instanceof ActorFuture ? (ActorFuture)f : (f.wraps() instanceof ActorFuture ? (ActorFuture)f.wraps() : null);
+            if (af != null) af.unlink();
           }
         }
-        return this;
       }
     }
-    catch (InterruptedException e)
+
+    // wait for non-actor futures with whatever time is left
+    if (others != null)
     {
-      throw InterruptedErr.make(e);
+      for (int i=0; i<others.size(); ++i)
+      {
+        Future f = (Future)others.get(i);
+        if (timeout == null) f.waitFor(null);
+        else f.waitFor(Duration.make(Math.max(0L, deadline - System.nanoTime())));
+      }
     }
   }
 
-  public final void cancel()
+  /**
+   * Return a future which completes using a single Join registered
+   * on each of the given futures for anyOf or firstSuccess.
+   */
+  static Future join(int kind, List list)
   {
-    ArrayList wd;
-    synchronized (this)
+    int n = list.sz();
+    if (n == 0) throw ArgErr.make("futures list is empty");
+
+    // resolve all first so we raise ArgErr before registering anything
+    ActorFuture[] actual = new ActorFuture[n];
+    for (int i=0; i<n; ++i) actual[i] = toActorFuture((Future)list.get(i));
+
+    ActorFuture dst = new ActorFuture(null);
+    Join join = new Join(kind, n, null, dst);
+    for (int i=0; i<n; ++i)
     {
-      if ((state & DONE) == 0) state = DONE_CANCEL;
-      msg = result = null;  // allow gc
-      notifyAll();
-      wd = whenDone; whenDone = null;
+      actual[i].whenComplete(new JoinNode(join, (Future)list.get(i)));
+      if (join.won.get()) break;
     }
-    sendWhenDone(wd);
+    return dst;
   }
 
-  public final Future complete(Object r)
+  /**
+   * Join is the state shared by all the futures of a waitForAll,
+   * anyOf, or firstSuccess call.
+   */
+  static final class Join
   {
-    r = Actor._safe(r);
-    ArrayList wd;
-    synchronized (this)
+    Join(int kind, int pending, Thread thread, ActorFuture dst)
     {
-      if (state == DONE_CANCEL) return this;
-      if (state != PENDING) throw Err.make("Future already complete");
-      state = DONE_OK;
-      result = r;
-      notifyAll();
-      wd = whenDone; whenDone = null;
+      this.kind    = kind;
+      this.pending = new AtomicInteger(pending);
+      this.thread  = thread;
+      this.dst     = dst;
     }
-    sendWhenDone(wd);
-    return this;
+
+    void done(Future src)
+    {
+      if (kind == ALL)
+      {
+        if (pending.decrementAndGet() == 0) LockSupport.unpark(thread);
+        return;
+      }
+
+      FutureStatus status = src.status();
+      if (kind == ANY || status.isOk())
+      {
+        if (won.compareAndSet(false, true)) relay(src, dst);
+        return;
+      }
+
+      // firstSuccess fails once all the futures have failed
+      if (status.isErr()) lastErr = src;
+      if (pending.decrementAndGet() == 0 && won.compareAndSet(false, true))
+      {
+        if (lastErr != null) relay(lastErr, dst);
+        else dst.cancel();
+      }
+    }
+
+    final int kind;
+    final AtomicInteger pending;         // futures not done yet
+    final Thread thread;                 // thread parked in waitForAll
+    final ActorFuture dst;               // future for anyOf/firstSuccess
+    final AtomicBoolean won = new AtomicBoolean();  // has dst been completed
+    volatile Future lastErr;             // last future to fail
+    volatile boolean abandoned;          // waitForAll timed out or interrupted
   }
 
-  public final Future completeErr(Err e)
+  static final class JoinNode extends Node
   {
-    ArrayList wd;
-    synchronized (this)
+    JoinNode(Join join, Future src) { this.join = join; this.src = src; }
+    void fire() { join.done(src); }
+    boolean isDead() { return join.abandoned; }
+    final Join join;
+    final Future src;
+  }
+
+  /**
+   * Complete dst with the outcome of src which must be done.
+   */
+  static void relay(Future src, ActorFuture dst)
+  {
+    if (src.status().isCancelled()) { dst.cancel(); return; }
+    Object r;
+    try
     {
-      if (state == DONE_CANCEL) return this;
-      if (state != PENDING) throw Err.make("Future already complete");
-      state = DONE_ERR;
-      result = e;
-      notifyAll();
-      wd = whenDone; whenDone = null;
+      r = src.get();
     }
-    sendWhenDone(wd);
-    return this;
+    catch (Err e)
+    {
+      dst.completeErr(e);
+      return;
+    }
+    dst.complete(r);
   }
 
 //////////////////////////////////////////////////////////////////////////
-// When Done
+// CompletableFuture
 //////////////////////////////////////////////////////////////////////////
 
-  final void sendWhenDone(Actor a, ActorFuture f)
+  /**
+   * Bridge src to a CompletableFuture which is completed with the same
+   * result or exception instance once src is done.  Cancelling the
+   * CompletableFuture cancels src.
+   */
+  static CompletableFuture toCompletable(final Future src)
   {
-    // if already done, then set immediate flag
-    // otherwise add to our when done list
-    boolean immediate = false;
-    synchronized (this)
+    final CompletableFuture cf = new CompletableFuture();
+    toActorFuture(src).whenComplete(new Node()
     {
-      if (isDone()) immediate = true;
-      else
+      void fire()
       {
-        if (whenDone == null) whenDone = new ArrayList();
-        whenDone.add(new WhenDone(a, f));
+        if (src.status().isCancelled()) { cf.cancel(false); return; }
+        try { cf.complete(src.get()); }
+        catch (Throwable e) { cf.completeExceptionally(e); }
       }
-    }
-
-    // if immediate we are already done so enqueue immediately
-    if (immediate)
+    });
+    cf.whenComplete(new BiConsumer()
     {
-      try { a._enqueueWhenDone(f); }
-      catch (Throwable e) { e.printStackTrace(); }
-    }
+      public void accept(Object r, Object e)
+      {
+        if (cf.isCancelled()) src.cancel();
+      }
+    });
+    return cf;
   }
 
-  static void sendWhenDone(ArrayList list)
+  /**
+   * Return a future which is completed with the result or exception
+   * of the given stage.  Cancelling the returned future cancels the
+   * stage if it is a java.util.concurrent.Future.
+   */
+  static Future fromStage(final CompletionStage stage)
   {
-    if (list == null) return;
-    for (int i=0; i<list.size(); ++i)
+    final ActorFuture f = new ActorFuture(null);
+    stage.whenComplete(new BiConsumer()
+    {
+      public void accept(Object r, Object x)
+      {
+        Throwable e = (Throwable)x;
+        if (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+        try
+        {
+          if (e instanceof CancellationException) f.cancel();
+          else if (e != null) f.completeErr(e instanceof Err ? (Err)e : Err.make(e));
+          else f.complete(r);
+        }
+        catch (Throwable err)
+        {
+          if (f.status().isPending()) f.completeErr(err instanceof Err ? (Err)err : Err.make(err));
+        }
+      }
+    });
+    if (stage instanceof java.util.concurrent.Future)
     {
-      WhenDone wd = (WhenDone)list.get(i);
-      try { wd.actor._enqueueWhenDone(wd.future); }
-      catch (Throwable e) { e.printStackTrace(); }
+      f.whenComplete(new Node()
+      {
+        void fire() { if (f.status().isCancelled()) ((java.util.concurrent.Future)stage).cancel(false); }
+      });
     }
-  }
-
-  static class WhenDone
-  {
-    WhenDone(Actor a, ActorFuture f) { actor = a; future = f; }
-    Actor actor;
-    ActorFuture future;
+    return f;
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -265,15 +645,34 @@ public final class ActorFuture
 //////////////////////////////////////////////////////////////////////////
 
   static final int PENDING     = 0x00;
+  static final int COMPLETING  = 0x80;
   static final int DONE        = 0x0f;
   static final int DONE_CANCEL = 0x1f;
   static final int DONE_OK     = 0x2f;
   static final int DONE_ERR    = 0x4f;
 
+  static final int ON_COMPLETE   = 0;
+  static final int MAP           = 1;
+  static final int FLAT_MAP      = 2;
+  static final int RELAY         = 3;
+  static final int ALL           = 4;
+  static final int ANY           = 5;
+  static final int FIRST_SUCCESS = 6;
+
+  static final Node CLOSED = new Waiter(null);
+
+  private static final AtomicIntegerFieldUpdater stateUpdater =
+    AtomicIntegerFieldUpdater.newUpdater(ActorFuture.class, "state");
+  private static final AtomicReferenceFieldUpdater stackUpdater =
+    AtomicReferenceFieldUpdater.newUpdater(ActorFuture.class, Node.class, "stack");
+
   Object msg;                  // message send to Actor
-  ActorFuture next;            // linked list in Actor
+  volatile ActorFuture next;   // linked list in Actor
+  Scheduler.Node scheduled;    // if pending in pool's scheduler
+  long deadline;               // ticks after which msg is shed or zero
+  long enqueueTicks;           // ticks when queued if measuring queue wait or zero
   private volatile int state;  // processing state of message
   private Object result;       // result or exception of processing
-  private ArrayList whenDone;  // list of messages to deliver when done
+  private volatile Node stack; // waiters and continuations to run when done
 
 }
\ No newline at end of file
@@ -7,6 +7,9 @@
 //
 package fan.concurrent;
 
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import fan.sys.*;
 
 /**
@@ -42,8 +45,39 @@ public class ActorPool
     if (self.maxQueue < 1) throw ArgErr.make("ActorPool.maxQueue mst be >= 1, not " + self.maxQueue);
     if (self.maxQueue > Integer.MAX_VALUE) throw ArgErr.make("ActorPool.maxQueue too big");
 
-    self.threadPool = new ThreadPool(self.name, (int)self.maxThreads);
+    if (self.workStealing && self.virtualThreads) throw ArgErr.make("ActorPool cannot use both workStealing and virtualThreads");
+
+    if (self.targetLatency != null)
+    {
+      if (self.targetLatency.ticks() <= 0) throw ArgErr.make("ActorPool.targetLatency must be > 0ms, not " + self.targetLatency);
+      if (self.minThreads < 1 || self.minThreads > self.maxThreads) throw ArgErr.make("ActorPool.minThreads must be 1 to maxThreads, not " + self.minThreads);
+      if (self.workStealing || self.virtualThreads) throw ArgErr.make("ActorPool.targetLatency cannot be used with workStealing or virtualThreads");
+    }
+
+    if (self.stallThreshold != null && self.stallThreshold.ticks() <= 0)
+      throw ArgErr.make("ActorPool.stallThreshold must be > 0ms, not " + self.stallThreshold);
+
+    if (self.targetLatency != null)
+      self.threadPool = new ThreadPool(self.name, (int)self.minThreads, (int)self.maxThreads, self.targetLatency.ticks());
+    else if (self.virtualThreads)
+      self.threadPool = new VirtualThreadPool(self.name, (int)self.maxThreads);
+    else if (self.workStealing)
+      self.threadPool = new WorkStealingPool(self.name, (int)self.maxThreads);
+    else
+      self.threadPool = new ThreadPool(self.name, (int)self.maxThreads);
     self.scheduler = new Scheduler(self.name);
+
+    if (self.latencyHistograms)
+    {
+      self.queueWaits = new LatencyHistogram();
+      self.receiveTimes = new LatencyHistogram();
+    }
+
+    if (self.stallThreshold != null)
+    {
+      self.watchdog = new Watchdog(self);
+      self.watchdog.start();
+    }
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -128,19 +162,46 @@ public class ActorPool
     return best;
   }
 
+  public final long threadLimit()
+  {
+    if (threadPool instanceof ThreadPool) return ((ThreadPool)threadPool).limit();
+    return maxThreads;
+  }
+
+  public final long stallCount()
+  {
+    return watchdog == null ? 0 : watchdog.stallCount;
+  }
+
+  public final LatencyHistogram queueWaitHistogram() { return queueWaits; }
+
+  public final LatencyHistogram receiveHistogram() { return receiveTimes; }
+
+  public final List stalledActors()
+  {
+    List acc = List.make(Type.find("concurrent::Actor"), 0);
+    if (watchdog != null) watchdog.stalled(acc);
+    return acc;
+  }
+
   final boolean hasPending()
   {
     return threadPool.hasPending();
   }
 
-  final void submit(Actor actor)
+  final void submit(ThreadPool.Work work)
   {
-    threadPool.submit(actor);
+    threadPool.submit(work);
   }
 
   final void schedule(Actor a, Duration d, ActorFuture f)
   {
-    scheduler.schedule(d.ticks(), new ScheduledWork(a, f));
+    f.scheduled = scheduler.schedule(d.ticks(), new ScheduledWork(a, f));
+  }
+
+  final void schedule(Duration d, Scheduler.Work work)
+  {
+    scheduler.schedule(d.ticks(), work);
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -157,7 +218,18 @@ public class ActorPool
       out.printLine("ActorPool");
       out.printLine("  name:       " + name);
       out.printLine("  maxThreads: " + maxThreads);
+      if (targetLatency != null)
+        out.printLine("  minThreads: " + minThreads + " (target " + targetLatency + ")");
+      out.printLine("  workSteal:  " + workStealing);
+      out.printLine("  virtual:    " + virtualThreads);
       out.printLine("  maxTime:    " + maxTimeBeforeYield);
+      if (watchdog != null)
+        out.printLine("  stalls:     " + watchdog.stallCount + " (threshold " + stallThreshold + ", now " + stalledActors().sz() + ")");
+      if (queueWaits != null)
+      {
+        out.printLine("  queueWait:  " + queueWaits);
+        out.printLine("  receive:    " + receiveTimes);
+      }
       threadPool.dump(out);
     }
     catch (Exception e) { out.printLine("  " + e + "\n"); }
@@ -172,21 +244,119 @@ public class ActorPool
   {
     ScheduledWork(Actor a, ActorFuture f) { actor = a; future = f; }
     public String toString() { return "ScheduledWork msg=" + future.msg; }
-    public void work() { if (!future.isCancelled()) actor._enqueueLater(future); }
+    public void work() { future.scheduled = null; if (!future.isCancelled()) actor._enqueueLater(future); }
     public void cancel() { future.cancel(); }
     final Actor actor;
     final ActorFuture future;
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Watchdog
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Watchdog periodically scans the actors currently running on this
+   * pool's threads.  Actors register themselves for the duration of each
+   * _work cycle and stamp the start of each dispatch, so a stall is any
+   * dispatch stamp older than the threshold.  It runs as a repeating
+   * work item on the pool's scheduler thread.
+   */
+  static final class Watchdog implements Scheduler.Work
+  {
+    Watchdog(ActorPool pool)
+    {
+      this.pool = pool;
+      this.threshold = pool.stallThreshold.ticks();
+      this.interval = Math.max(threshold / 4, 1_000_000L);
+    }
+
+    void start() { pool.scheduler.schedule(interval, this); }
+
+    public String toString() { return "Watchdog pool=" + pool.name; }
+
+    public void work()
+    {
+      try
+      {
+        check();
+      }
+      catch (Throwable e)
+      {
+        e.printStackTrace();
+      }
+      if (!pool.isStopped()) start();
+    }
+
+    public void cancel() {}
+
+    private void check()
+    {
+      long now = Duration.nowTicks();
+      Iterator it = running.iterator();
+      while (it.hasNext())
+      {
+        Actor a = (Actor)it.next();
+        long start = a.dispatchTicks;
+        if (start == 0 || now - start < threshold || a.stallReported == start) continue;
+
+        // capture stack, then make sure it is still the same dispatch
+        Thread t = a.runner;
+        if (t == null) continue;
+        StackTraceElement[] stack = t.getStackTrace();
+        if (a.dispatchTicks != start) continue;
+
+        a.stallReported = start;
+        stallCount++;
+        report(a, t, stack, now - start);
+      }
+    }
+
+    private void report(Actor a, Thread t, StackTraceElement[] stack, long ticks)
+    {
+      String msg = "ActorPool '" + pool.name + "' actor stalled in receive for " +
+        Duration.make(ticks).toLocale() + " [thread " + t.getName() + ", msg " + a.curMsgToStr() + "]";
+      Err err = Err.make(msg);
+      err.setStackTrace(stack);
+      Log.get("concurrent").warn(msg, err);
+    }
+
+    void stalled(List acc)
+    {
+      long now = Duration.nowTicks();
+      Iterator it = running.iterator();
+      while (it.hasNext())
+      {
+        Actor a = (Actor)it.next();
+        long start = a.dispatchTicks;
+        if (start != 0 && now - start >= threshold) acc.add(a);
+      }
+    }
+
+    final ActorPool pool;
+    final long threshold;                  // stall threshold in ticks
+    final long interval;                   // ticks between checks
+    final Set running = ConcurrentHashMap.newKeySet(); // actors in _work
+    volatile long stallCount;              // only written by scheduler thread
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
-  private ThreadPool threadPool;
+  private ActorExecutor threadPool;
   private Scheduler scheduler;
   volatile boolean killed;
   public String name = "ActorPool";
   public long maxThreads = 100;
   public long maxQueue = 100_000_000;
   public Duration maxTimeBeforeYield = Duration.oneSec;
+  public boolean workStealing = false;
+  public boolean virtualThreads = false;
+  public Duration stallThreshold = null;
+  public long minThreads = 1;
+  public Duration targetLatency = null;
+  public boolean latencyHistograms = false;
+  Watchdog watchdog;
+  LatencyHistogram queueWaits;     // if latencyHistograms
+  LatencyHistogram receiveTimes;   // if latencyHistograms
 }
\ No newline at end of file
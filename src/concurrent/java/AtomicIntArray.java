@@ -0,0 +1,82 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import fan.sys.*;
+
+/**
+ * AtomicIntArray maps each element to a slot of an AtomicLongArray.
+ * When padded, elements are spaced a cache line apart with a leading
+ * line so the first element does not share a line with the array header.
+ */
+public final class AtomicIntArray extends FanObj
+{
+  public static AtomicIntArray make(long size) { return make(size, false); }
+  public static AtomicIntArray make(long size, boolean padded)
+  {
+    if (size < 0) throw ArgErr.make("size < 0: " + size);
+    int shift = padded ? PAD : 0;
+    long max = (MAX_LENGTH >> shift) - (padded ? 1 : 0);
+    if (size > max) throw ArgErr.make("size too big: " + size + " > " + max);
+    return new AtomicIntArray((int)size, shift);
+  }
+
+  private AtomicIntArray(int size, int shift)
+  {
+    this.size  = size;
+    this.shift = shift;
+    this.array = new AtomicLongArray((size + (shift == 0 ? 0 : 1)) << shift);
+  }
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::AtomicIntArray");
+
+  public long size() { return size; }
+
+  public long get(long index) { return array.get(slot(index)); }
+
+  public void set(long index, long val) { array.set(slot(index), val); }
+
+  public long getAndSet(long index, long val) { return array.getAndSet(slot(index), val); }
+
+  public boolean compareAndSet(long index, long expect, long update) { return array.compareAndSet(slot(index), expect, update); }
+
+  public long getAndAdd(long index, long delta) { return array.getAndAdd(slot(index), delta); }
+
+  public long addAndGet(long index, long delta) { return array.addAndGet(slot(index), delta); }
+
+  public void increment(long index) { array.getAndIncrement(slot(index)); }
+
+  public void decrement(long index) { array.getAndDecrement(slot(index)); }
+
+  public void add(long index, long delta) { array.getAndAdd(slot(index), delta); }
+
+  public List toList()
+  {
+    List list = List.make(Sys.IntType, size);
+    for (int i=0; i<size; ++i) list.add(Long.valueOf(get(i)));
+    return list;
+  }
+
+  public String toStr() { return toList().toStr(); }
+
+  private int slot(long index)
+  {
+    if (index < 0 || index >= size) throw IndexErr.make(index);
+    return shift == 0 ? (int)index : ((int)index + 1) << shift;
+  }
+
+  static final int MAX_LENGTH = Integer.MAX_VALUE - 8;  // largest safe Java array
+  private static final int PAD = 3;  // shift for 8 longs (64 bytes) per element
+
+  private final int size;               // number of elements
+  private final int shift;              // 0 if packed or PAD if padded
+  private final AtomicLongArray array;  // element storage
+}
@@ -0,0 +1,69 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import fan.sys.*;
+
+/**
+ * AtomicRefArray
+ */
+public final class AtomicRefArray extends FanObj
+{
+  public static AtomicRefArray make(long size)
+  {
+    if (size < 0) throw ArgErr.make("size < 0: " + size);
+    if (size > AtomicIntArray.MAX_LENGTH) throw ArgErr.make("size too big: " + size + " > " + AtomicIntArray.MAX_LENGTH);
+    return new AtomicRefArray((int)size);
+  }
+
+  private AtomicRefArray(int size) { this.array = new AtomicReferenceArray(size); }
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::AtomicRefArray");
+
+  public long size() { return array.length(); }
+
+  public Object get(long index) { return array.get(index(index)); }
+
+  public void set(long index, Object val) { array.set(index(index), checkImmutable(val)); }
+
+  public Object getAndSet(long index, Object val) { return array.getAndSet(index(index), checkImmutable(val)); }
+
+  public boolean compareAndSet(long index, Object expect, Object update)
+  {
+    return array.compareAndSet(index(index), expect, checkImmutable(update));
+  }
+
+  public List toList()
+  {
+    int n = array.length();
+    List list = List.make(Sys.ObjType.toNullable(), n);
+    for (int i=0; i<n; ++i) list.add(array.get(i));
+    return list;
+  }
+
+  public String toStr() { return toList().toStr(); }
+
+  private int index(long index)
+  {
+    if (index < 0 || index >= array.length()) throw IndexErr.make(index);
+    return (int)index;
+  }
+
+  private static Object checkImmutable(Object val)
+  {
+    if (val == null || FanObj.isImmutable(val))
+      return val;
+    else
+      throw NotImmutableErr.make();
+  }
+
+  private final AtomicReferenceArray array;
+}
@@ -11,6 +11,9 @@ package fan.concurrent;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import fan.sys.*;
 
 /**
@@ -89,6 +92,74 @@ public final class ConcurrentMap extends FanObj
     return null;
   }
 
+  public Object compute(Object key, Func f)
+  {
+    final Func func = (Func)f.toImmutable();
+    return map.compute(key, new BiFunction()
+    {
+      public Object apply(Object k, Object v) { return checkImmutableOrNull(func.call(k, v)); }
+    });
+  }
+
+  public Object computeIfAbsent(Object key, Func f)
+  {
+    final Func func = (Func)f.toImmutable();
+    return map.computeIfAbsent(key, new Function()
+    {
+      public Object apply(Object k) { return checkImmutable(func.call(k)); }
+    });
+  }
+
+  public Object merge(Object key, Object val, Func f)
+  {
+    final Func func = (Func)f.toImmutable();
+    return map.merge(key, checkImmutable(val), new BiFunction()
+    {
+      public Object apply(Object old, Object v) { return checkImmutableOrNull(func.call(old, v)); }
+    });
+  }
+
+  public long removeIf(Func f)
+  {
+    Func func = (Func)f.toImmutable();
+    long count = 0;
+    Iterator it = map.entrySet().iterator();
+    while (it.hasNext())
+    {
+      Entry e = (Entry)it.next();
+      Object val = e.getValue();
+      if (func.call(val, e.getKey()) != Boolean.TRUE) continue;
+
+      // only remove if not concurrently changed since we tested it
+      if (map.remove(e.getKey(), val)) count++;
+    }
+    return count;
+  }
+
+  public void eachParallel(long threshold, Func f)
+  {
+    final Func func = (Func)f.toImmutable();
+    map.forEach(threshold, new BiConsumer()
+    {
+      public void accept(Object k, Object v) { func.call(v, k); }
+    });
+  }
+
+  public Object reduce(long threshold, Func transform, Func reducer)
+  {
+    final Func t = (Func)transform.toImmutable();
+    final Func r = (Func)reducer.toImmutable();
+    return map.reduce(threshold,
+      new BiFunction()
+      {
+        public Object apply(Object k, Object v) { return t.call(v, k); }
+      },
+      new BiFunction()
+      {
+        public Object apply(Object a, Object b) { return r.call(a, b); }
+      });
+  }
+
   public boolean containsKey(Object key) { return map.containsKey(key); }
 
   public List keys(Type of)
@@ -115,5 +186,13 @@ public final class ConcurrentMap extends FanObj
       throw NotImmutableErr.make();
   }
 
+  private static Object checkImmutableOrNull(Object val)
+  {
+    if (val == null || FanObj.isImmutable(val))
+      return val;
+    else
+      throw NotImmutableErr.make();
+  }
+
   final ConcurrentHashMap map;
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import fan.sys.*;
+import fanx.util.OpUtil;
+
+/**
+ * ConstList is a persistent vector: a 32-way trie of Object[] nodes
+ * holding every full chunk of 32 items, plus a tail array holding the
+ * last 1 to 32 items so that appends only copy the tail.
+ */
+public final class ConstList extends FanObj
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  public static ConstList make() { return empty; }
+
+  public static ConstList makeList(List list) { return empty.addAll(list); }
+
+  private ConstList(int size, int shift, Object[] root, Object[] tail)
+  {
+    this.size  = size;
+    this.shift = shift;
+    this.root  = root;
+    this.tail  = tail;
+  }
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::ConstList");
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  public boolean isEmpty() { return size == 0; }
+
+  public long size() { return size; }
+
+  public Object get(long index)
+  {
+    long i = index < 0 ? size + index : index;
+    if (i < 0 || i >= size) throw IndexErr.make(index);
+    return chunkFor((int)i)[(int)i & 0x1f];
+  }
+
+  public Object getSafe(long index) { return getSafe(index, null); }
+  public Object getSafe(long index, Object def)
+  {
+    if (index < 0) index = size + index;
+    if (index < 0 || index >= size) return def;
+    int i = (int)index;
+    return chunkFor(i)[i & 0x1f];
+  }
+
+  public Object first() { return size == 0 ? null : chunkFor(0)[0]; }
+
+  public Object last() { return size == 0 ? null : tail[tail.length-1]; }
+
+//////////////////////////////////////////////////////////////////////////
+// Modification
+//////////////////////////////////////////////////////////////////////////
+
+  public ConstList add(Object item)
+  {
+    checkImmutable(item);
+
+    // room in tail
+    if (size - tailOffset() < 32)
+    {
+      Object[] t = new Object[tail.length+1];
+      System.arraycopy(tail, 0, t, 0, tail.length);
+      t[tail.length] = item;
+      return new ConstList(size+1, shift, root, t);
+    }
+
+    // push full tail into the trie, adding a level if root is full
+    Object[] r;
+    int s = shift;
+    if ((size >>> 5) > (1 << shift))
+    {
+      r = new Object[32];
+      r[0] = root;
+      r[1] = newPath(shift, tail);
+      s += 5;
+    }
+    else
+    {
+      r = pushTail(shift, root, tail);
+    }
+    return new ConstList(size+1, s, r, new Object[] { item });
+  }
+
+  public ConstList addAll(List list)
+  {
+    ConstList acc = this;
+    for (int i=0; i<list.sz(); ++i) acc = acc.add(list.get(i));
+    return acc;
+  }
+
+  public ConstList set(long index, Object item)
+  {
+    checkImmutable(item);
+    if (index < 0) index = size + index;
+    if (index < 0 || index >= size) throw IndexErr.make(index);
+    int i = (int)index;
+    if (i >= tailOffset())
+    {
+      Object[] t = (Object[])tail.clone();
+      t[i & 0x1f] = item;
+      return new ConstList(size, shift, root, t);
+    }
+    return new ConstList(size, shift, doSet(shift, root, i, item), tail);
+  }
+
+  public ConstList removeLast()
+  {
+    if (size == 0) throw IndexErr.make(-1L);
+    if (size == 1) return empty;
+
+    // shrink tail
+    if (size - tailOffset() > 1)
+    {
+      Object[] t = new Object[tail.length-1];
+      System.arraycopy(tail, 0, t, 0, t.length);
+      return new ConstList(size-1, shift, root, t);
+    }
+
+    // pull last chunk out of the trie as the new tail
+    Object[] t = chunkFor(size-2);
+    Object[] r = popTail(shift, root);
+    int s = shift;
+    if (r == null) r = emptyNode;
+    if (shift > 5 && r[1] == null)
+    {
+      r = (Object[])r[0];
+      s -= 5;
+    }
+    return new ConstList(size-1, s, r, t);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Iteration
+//////////////////////////////////////////////////////////////////////////
+
+  public void each(Func f)
+  {
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] chunk = chunkFor(i);
+      for (int j=0; j<chunk.length; ++j)
+        f.call(chunk[j], Long.valueOf(i+j));
+    }
+  }
+
+  public Object eachWhile(Func f)
+  {
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] chunk = chunkFor(i);
+      for (int j=0; j<chunk.length; ++j)
+      {
+        Object r = f.call(chunk[j], Long.valueOf(i+j));
+        if (r != null) return r;
+      }
+    }
+    return null;
+  }
+
+  public List toList(Type of)
+  {
+    List list = List.make(of, size);
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] chunk = chunkFor(i);
+      for (int j=0; j<chunk.length; ++j) list.add(chunk[j]);
+    }
+    return list;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Identity
+//////////////////////////////////////////////////////////////////////////
+
+  public boolean equals(Object that)
+  {
+    if (this == that) return true;
+    if (!(that instanceof ConstList)) return false;
+    ConstList x = (ConstList)that;
+    if (size != x.size) return false;
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] a = chunkFor(i);
+      Object[] b = x.chunkFor(i);
+      if (a == b) continue;
+      for (int j=0; j<a.length; ++j)
+        if (!OpUtil.compareEQ(a[j], b[j])) return false;
+    }
+    return true;
+  }
+
+  public long hash()
+  {
+    long hash = 33;
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] chunk = chunkFor(i);
+      for (int j=0; j<chunk.length; ++j)
+      {
+        Object obj = chunk[j];
+        hash = (31*hash) + (obj == null ? 0 : FanObj.hash(obj));
+      }
+    }
+    return hash;
+  }
+
+  public String toStr()
+  {
+    if (size == 0) return "[,]";
+    StringBuilder s = new StringBuilder(32+size*32);
+    s.append("[");
+    for (int i=0; i<size; i+=32)
+    {
+      Object[] chunk = chunkFor(i);
+      for (int j=0; j<chunk.length; ++j)
+      {
+        if (i+j > 0) s.append(", ");
+        s.append(chunk[j]);
+      }
+    }
+    s.append("]");
+    return s.toString();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Trie
+//////////////////////////////////////////////////////////////////////////
+
+  /** Index of the first item stored in the tail */
+  private int tailOffset()
+  {
+    return size < 32 ? 0 : ((size-1) >>> 5) << 5;
+  }
+
+  /** Return the 32 item chunk (or tail) which holds index i */
+  private Object[] chunkFor(int i)
+  {
+    if (i >= tailOffset()) return tail;
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= 5)
+      node = (Object[])node[(i >>> level) & 0x1f];
+    return node;
+  }
+
+  private Object[] pushTail(int level, Object[] parent, Object[] chunk)
+  {
+    int sub = ((size-1) >>> level) & 0x1f;
+    Object[] r = (Object[])parent.clone();
+    if (level == 5)
+    {
+      r[sub] = chunk;
+    }
+    else
+    {
+      Object[] child = (Object[])parent[sub];
+      r[sub] = child != null ? pushTail(level-5, child, chunk) : newPath(level-5, chunk);
+    }
+    return r;
+  }
+
+  private Object[] popTail(int level, Object[] node)
+  {
+    int sub = ((size-2) >>> level) & 0x1f;
+    if (level > 5)
+    {
+      Object[] child = popTail(level-5, (Object[])node[sub]);
+      if (child == null && sub == 0) return null;
+      Object[] r = (Object[])node.clone();
+      r[sub] = child;
+      return r;
+    }
+    if (sub == 0) return null;
+    Object[] r = (Object[])node.clone();
+    r[sub] = null;
+    return r;
+  }
+
+  private static Object[] newPath(int level, Object[] chunk)
+  {
+    if (level == 0) return chunk;
+    Object[] r = new Object[32];
+    r[0] = newPath(level-5, chunk);
+    return r;
+  }
+
+  private static Object[] doSet(int level, Object[] node, int i, Object item)
+  {
+    Object[] r = (Object[])node.clone();
+    if (level == 0)
+      r[i & 0x1f] = item;
+    else
+    {
+      int sub = (i >>> level) & 0x1f;
+      r[sub] = doSet(level-5, (Object[])node[sub], i, item);
+    }
+    return r;
+  }
+
+  private static void checkImmutable(Object val)
+  {
+    if (!FanObj.isImmutable(val)) throw NotImmutableErr.make();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Object[] emptyNode = new Object[32];
+  private static final ConstList empty = new ConstList(0, 5, emptyNode, new Object[0]);
+
+  private final int size;       // number of items
+  private final int shift;      // bits to shift at the root level
+  private final Object[] root;  // trie of full 32 item chunks
+  private final Object[] tail;  // last 1 to 32 items
+}
@@ -0,0 +1,449 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import fan.sys.*;
+import fanx.util.OpUtil;
+
+/**
+ * ConstMap is a persistent hash array mapped trie.  Each level of the
+ * trie consumes 5 bits of the key's hash code; keys with identical hash
+ * codes are stored linearly in a CollisionNode.
+ */
+public final class ConstMap extends FanObj
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  public static ConstMap make() { return empty; }
+
+  public static ConstMap makeMap(Map m) { return empty.setAll(m); }
+
+  private ConstMap(Node root, int size)
+  {
+    this.root = root;
+    this.size = size;
+  }
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::ConstMap");
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  public boolean isEmpty() { return size == 0; }
+
+  public long size() { return size; }
+
+  public Object get(Object key) { return get(key, null); }
+  public Object get(Object key, Object def)
+  {
+    if (root == null) return def;
+    return root.find(0, key.hashCode(), key, def);
+  }
+
+  public boolean containsKey(Object key)
+  {
+    if (root == null) return false;
+    return root.find(0, key.hashCode(), key, notFound) != notFound;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Modification
+//////////////////////////////////////////////////////////////////////////
+
+  public ConstMap set(Object key, Object val)
+  {
+    checkImmutable(key);
+    checkImmutable(val);
+    boolean[] added = new boolean[1];
+    Node r = root == null ? BitmapNode.empty : root;
+    r = r.assoc(0, key.hashCode(), key, val, added);
+    if (r == root) return this;
+    return new ConstMap(r, added[0] ? size+1 : size);
+  }
+
+  public ConstMap setAll(Map m)
+  {
+    boolean[] added = new boolean[1];
+    Node r = root == null ? BitmapNode.empty : root;
+    int n = size;
+    Iterator it = m.pairsIterator();
+    while (it.hasNext())
+    {
+      Entry e = (Entry)it.next();
+      Object key = checkImmutable(e.getKey());
+      Object val = checkImmutable(e.getValue());
+      added[0] = false;
+      r = r.assoc(0, key.hashCode(), key, val, added);
+      if (added[0]) n++;
+    }
+    if (n == 0) return empty;
+    if (r == root) return this;
+    return new ConstMap(r, n);
+  }
+
+  public ConstMap remove(Object key)
+  {
+    if (root == null) return this;
+    Node r = root.without(0, key.hashCode(), key);
+    if (r == root) return this;
+    if (r == null) return empty;
+    return new ConstMap(r, size-1);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Iteration
+//////////////////////////////////////////////////////////////////////////
+
+  public void each(Func f)
+  {
+    if (root != null) root.walk(f, false);
+  }
+
+  public Object eachWhile(Func f)
+  {
+    if (root == null) return null;
+    return root.walk(f, true);
+  }
+
+  public List keys(Type of)
+  {
+    final List list = List.make(of, size);
+    if (root != null) root.walk(new Visitor() { void visit(Object k, Object v) { list.add(k); } });
+    return list;
+  }
+
+  public List vals(Type of)
+  {
+    final List list = List.make(of, size);
+    if (root != null) root.walk(new Visitor() { void visit(Object k, Object v) { list.add(v); } });
+    return list;
+  }
+
+  public Map toMap()
+  {
+    final Map map = Map.make(new MapType(Sys.ObjType, Sys.ObjType.toNullable()));
+    if (root != null) root.walk(new Visitor() { void visit(Object k, Object v) { map.set(k, v); } });
+    return map;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Identity
+//////////////////////////////////////////////////////////////////////////
+
+  public boolean equals(Object that)
+  {
+    if (this == that) return true;
+    if (!(that instanceof ConstMap)) return false;
+    final ConstMap x = (ConstMap)that;
+    if (size != x.size) return false;
+    if (root == null) return true;
+    final boolean[] eq = { true };
+    root.walk(new Visitor()
+    {
+      void visit(Object k, Object v)
+      {
+        if (eq[0] && !OpUtil.compareEQ(v, x.get(k, notFound))) eq[0] = false;
+      }
+    });
+    return eq[0];
+  }
+
+  public long hash()
+  {
+    final long[] hash = { 0 };
+    if (root != null) root.walk(new Visitor()
+    {
+      void visit(Object k, Object v)
+      {
+        hash[0] += k.hashCode() ^ (v == null ? 0 : v.hashCode());
+      }
+    });
+    return hash[0];
+  }
+
+  public String toStr()
+  {
+    if (size == 0) return "[:]";
+    final StringBuilder s = new StringBuilder(32+size*32);
+    s.append("[");
+    root.walk(new Visitor()
+    {
+      void visit(Object k, Object v)
+      {
+        if (s.length() > 1) s.append(", ");
+        s.append(k).append(':').append(v);
+      }
+    });
+    s.append("]");
+    return s.toString();
+  }
+
+  private static Object checkImmutable(Object val)
+  {
+    if (FanObj.isImmutable(val))
+      return val;
+    else
+      throw NotImmutableErr.make();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Node
+//////////////////////////////////////////////////////////////////////////
+
+  static abstract class Visitor
+  {
+    abstract void visit(Object key, Object val);
+  }
+
+  static abstract class Node
+  {
+    /** Return value mapped by key or notFound */
+    abstract Object find(int shift, int hash, Object key, Object notFound);
+
+    /** Return node with key mapped to val, set added[0] if new key */
+    abstract Node assoc(int shift, int hash, Object key, Object val, boolean[] added);
+
+    /** Return node without key, or null if node is now empty */
+    abstract Node without(int shift, int hash, Object key);
+
+    /** Call func with (val, key) and stop on non-null if untilNonNull */
+    abstract Object walk(Func f, boolean untilNonNull);
+
+    /** Call visitor with every key/val pair */
+    abstract void walk(Visitor v);
+  }
+
+  /**
+   * BitmapNode stores up to 32 entries indexed by 5 bits of the hash.
+   * The array stores key/val pairs; a null key indicates the val is
+   * a child node for the next 5 bits.
+   */
+  static final class BitmapNode extends Node
+  {
+    static final BitmapNode empty = new BitmapNode(0, new Object[0]);
+
+    BitmapNode(int bitmap, Object[] array)
+    {
+      this.bitmap = bitmap;
+      this.array  = array;
+    }
+
+    Object find(int shift, int hash, Object key, Object notFound)
+    {
+      int bit = bitpos(hash, shift);
+      if ((bitmap & bit) == 0) return notFound;
+      int i = 2*index(bit);
+      Object k = array[i];
+      Object v = array[i+1];
+      if (k == null) return ((Node)v).find(shift+5, hash, key, notFound);
+      if (key.equals(k)) return v;
+      return notFound;
+    }
+
+    Node assoc(int shift, int hash, Object key, Object val, boolean[] added)
+    {
+      int bit = bitpos(hash, shift);
+      int i = 2*index(bit);
+      if ((bitmap & bit) != 0)
+      {
+        Object k = array[i];
+        Object v = array[i+1];
+        if (k == null)
+        {
+          Node n = ((Node)v).assoc(shift+5, hash, key, val, added);
+          if (n == v) return this;
+          return new BitmapNode(bitmap, cloneSet(array, i+1, n));
+        }
+        if (key.equals(k))
+        {
+          if (v == val) return this;
+          return new BitmapNode(bitmap, cloneSet(array, i+1, val));
+        }
+        added[0] = true;
+        Object[] a = cloneSet(array, i+1, createNode(shift+5, k, v, hash, key, val));
+        a[i] = null;
+        return new BitmapNode(bitmap, a);
+      }
+      else
+      {
+        Object[] a = new Object[array.length+2];
+        System.arraycopy(array, 0, a, 0, i);
+        a[i] = key;
+        a[i+1] = val;
+        System.arraycopy(array, i, a, i+2, array.length-i);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, a);
+      }
+    }
+
+    Node without(int shift, int hash, Object key)
+    {
+      int bit = bitpos(hash, shift);
+      if ((bitmap & bit) == 0) return this;
+      int i = 2*index(bit);
+      Object k = array[i];
+      Object v = array[i+1];
+      if (k == null)
+      {
+        Node n = ((Node)v).without(shift+5, hash, key);
+        if (n == v) return this;
+        if (n != null) return new BitmapNode(bitmap, cloneSet(array, i+1, n));
+      }
+      else if (!key.equals(k))
+      {
+        return this;
+      }
+      if (bitmap == bit) return null;
+      return new BitmapNode(bitmap ^ bit, removePair(array, i));
+    }
+
+    Object walk(Func f, boolean untilNonNull)
+    {
+      for (int i=0; i<array.length; i+=2)
+      {
+        Object k = array[i];
+        Object r = k == null ?
+          ((Node)array[i+1]).walk(f, untilNonNull) :
+          f.call(array[i+1], k);
+        if (untilNonNull && r != null) return r;
+      }
+      return null;
+    }
+
+    void walk(Visitor v)
+    {
+      for (int i=0; i<array.length; i+=2)
+      {
+        Object k = array[i];
+        if (k == null) ((Node)array[i+1]).walk(v);
+        else v.visit(k, array[i+1]);
+      }
+    }
+
+    private int index(int bit) { return Integer.bitCount(bitmap & (bit-1)); }
+
+    final int bitmap;      // bit set for each occupied 5 bit hash slot
+    final Object[] array;  // key/val pairs, or null/Node pairs
+  }
+
+  /**
+   * CollisionNode stores key/val pairs which share the same full hash.
+   */
+  static final class CollisionNode extends Node
+  {
+    CollisionNode(int hash, Object[] array)
+    {
+      this.hash  = hash;
+      this.array = array;
+    }
+
+    Object find(int shift, int hash, Object key, Object notFound)
+    {
+      int i = indexOf(key);
+      return i < 0 ? notFound : array[i+1];
+    }
+
+    Node assoc(int shift, int hash, Object key, Object val, boolean[] added)
+    {
+      if (hash != this.hash)
+      {
+        // nest this node in a bitmap node at this level and retry
+        Node n = new BitmapNode(bitpos(this.hash, shift), new Object[] { null, this });
+        return n.assoc(shift, hash, key, val, added);
+      }
+      int i = indexOf(key);
+      if (i >= 0)
+      {
+        if (array[i+1] == val) return this;
+        return new CollisionNode(hash, cloneSet(array, i+1, val));
+      }
+      Object[] a = new Object[array.length+2];
+      System.arraycopy(array, 0, a, 0, array.length);
+      a[array.length] = key;
+      a[array.length+1] = val;
+      added[0] = true;
+      return new CollisionNode(hash, a);
+    }
+
+    Node without(int shift, int hash, Object key)
+    {
+      int i = indexOf(key);
+      if (i < 0) return this;
+      if (array.length == 2) return null;
+      return new CollisionNode(hash, removePair(array, i));
+    }
+
+    Object walk(Func f, boolean untilNonNull)
+    {
+      for (int i=0; i<array.length; i+=2)
+      {
+        Object r = f.call(array[i+1], array[i]);
+        if (untilNonNull && r != null) return r;
+      }
+      return null;
+    }
+
+    void walk(Visitor v)
+    {
+      for (int i=0; i<array.length; i+=2) v.visit(array[i], array[i+1]);
+    }
+
+    private int indexOf(Object key)
+    {
+      for (int i=0; i<array.length; i+=2)
+        if (key.equals(array[i])) return i;
+      return -1;
+    }
+
+    final int hash;        // hash code shared by every key
+    final Object[] array;  // key/val pairs
+  }
+
+  private static Node createNode(int shift, Object k1, Object v1, int h2, Object k2, Object v2)
+  {
+    int h1 = k1.hashCode();
+    if (h1 == h2) return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+    boolean[] added = new boolean[1];
+    return BitmapNode.empty.assoc(shift, h1, k1, v1, added).assoc(shift, h2, k2, v2, added);
+  }
+
+  private static int bitpos(int hash, int shift) { return 1 << ((hash >>> shift) & 0x1f); }
+
+  private static Object[] cloneSet(Object[] array, int i, Object val)
+  {
+    Object[] a = (Object[])array.clone();
+    a[i] = val;
+    return a;
+  }
+
+  private static Object[] removePair(Object[] array, int i)
+  {
+    Object[] a = new Object[array.length-2];
+    System.arraycopy(array, 0, a, 0, i);
+    System.arraycopy(array, i+2, a, i, array.length-i-2);
+    return a;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final Object notFound = new Object();
+  private static final ConstMap empty = new ConstMap(null, 0);
+
+  private final Node root;   // null if empty
+  private final int size;    // number of key/val pairs
+}
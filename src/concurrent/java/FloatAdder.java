@@ -0,0 +1,37 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import fan.sys.*;
+
+/**
+ * FloatAdder
+ */
+public final class FloatAdder extends FanObj
+{
+  public static FloatAdder make() { return new FloatAdder(); }
+
+  FloatAdder() {}
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::FloatAdder");
+
+  public void add(double delta) { adder.add(delta); }
+
+  public double sum() { return adder.sum(); }
+
+  public void reset() { adder.reset(); }
+
+  public double sumThenReset() { return adder.sumThenReset(); }
+
+  public String toStr() { return FanFloat.toStr(adder.sum()); }
+
+  private final DoubleAdder adder = new DoubleAdder();
+}
@@ -9,6 +9,8 @@
 package fan.concurrent;
 
 import fan.sys.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 
@@ -65,26 +67,13 @@ public abstract class Future
   public static final void waitForAll(List list) { waitForAll(list, null); }
   public static final void waitForAll(List list, Duration timeout)
   {
-    if (timeout == null)
-    {
-      for (int i=0; i<list.sz(); ++i)
-      {
-        Future f = (Future)list.get(i);
-        f.waitFor(null);
-      }
-    }
-    else
-    {
-      long deadline = Duration.nowMillis() + timeout.millis();
-      for (int i=0; i<list.sz(); ++i)
-      {
-        Future f = (Future)list.get(i);
-        long left = deadline - Duration.nowMillis();
-        f.waitFor(Duration.makeMillis(left));
-      }
-    }
+    ActorFuture.awaitAll(list, timeout);
   }
 
+  public static final Future anyOf(List list) { return ActorFuture.join(ActorFuture.ANY, list); }
+
+  public static final Future firstSuccess(List list) { return ActorFuture.join(ActorFuture.FIRST_SUCCESS, list); }
+
   // java Future version
   public final boolean cancel(boolean mayInterrupt)
   {
@@ -100,4 +89,30 @@ public abstract class Future
 
   public Future wraps() { return null; }
 
+//////////////////////////////////////////////////////////////////////////
+// Continuations
+//////////////////////////////////////////////////////////////////////////
+
+  public final Future onComplete(ActorPool pool, Func f) { return ActorFuture.then(ActorFuture.ON_COMPLETE, this, pool, f); }
+
+  public final Future map(ActorPool pool, Func f) { return ActorFuture.then(ActorFuture.MAP, this, pool, f); }
+
+  public final Future flatMap(ActorPool pool, Func f) { return ActorFuture.then(ActorFuture.FLAT_MAP, this, pool, f); }
+
+  /**
+   * Return a CompletableFuture which completes with this future's result
+   * or exception instance (no copy is made), or is cancelled if this future
+   * is cancelled.  Cancelling the returned CompletableFuture cancels this
+   * future.  This method is only available to Java code.
+   */
+  public final CompletableFuture toCompletableFuture() { return ActorFuture.toCompletable(this); }
+
+  /**
+   * Return a future which completes with the result or exception of
+   * the given stage.  The result must be immutable, otherwise the future
+   * completes with NotImmutableErr.  Non-Fantom exceptions are wrapped
+   * by Err.  This method is only available to Java code.
+   */
+  public static Future fromCompletionStage(CompletionStage stage) { return ActorFuture.fromStage(stage); }
+
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import fan.sys.*;
+
+/**
+ * IntAdder
+ */
+public final class IntAdder extends FanObj
+{
+  public static IntAdder make() { return new IntAdder(); }
+
+  IntAdder() {}
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::IntAdder");
+
+  public void increment() { adder.increment(); }
+
+  public void decrement() { adder.decrement(); }
+
+  public void add(long delta) { adder.add(delta); }
+
+  public long sum() { return adder.sum(); }
+
+  public void reset() { adder.reset(); }
+
+  public long sumThenReset() { return adder.sumThenReset(); }
+
+  public String toStr() { return String.valueOf(adder.sum()); }
+
+  private final LongAdder adder = new LongAdder();
+}
@@ -0,0 +1,167 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import fan.sys.*;
+
+/**
+ * LatencyHistogram counts nanosecond ticks in log-linear buckets: values
+ * below 32 have a bucket each, then every power of two is split into
+ * 32 sub-buckets up to 2^43 ticks.
+ */
+public final class LatencyHistogram extends FanObj
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  public static LatencyHistogram make() { return new LatencyHistogram(); }
+
+  LatencyHistogram() {}
+
+  public final Type typeof() { return typeof; }
+  private static final Type typeof = Type.find("concurrent::LatencyHistogram");
+
+//////////////////////////////////////////////////////////////////////////
+// Recording
+//////////////////////////////////////////////////////////////////////////
+
+  public void record(Duration d) { record(d.ticks(), 1L); }
+
+  /**
+   * Record n values of the given ticks.
+   */
+  final void record(long ticks, long n)
+  {
+    if (ticks < 0L) ticks = 0L;
+    counts.getAndAdd(index(ticks), n);
+    sum.add(ticks * n);
+    long x;
+    while (ticks > (x = max.get()) && !max.compareAndSet(x, ticks)) {}
+    while (ticks < (x = min.get()) && !min.compareAndSet(x, ticks)) {}
+  }
+
+  public void reset()
+  {
+    for (int i=0; i<BUCKETS; ++i) counts.set(i, 0L);
+    sum.reset();
+    max.set(0L);
+    min.set(Long.MAX_VALUE);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+  public long count()
+  {
+    long n = 0;
+    for (int i=0; i<BUCKETS; ++i) n += counts.get(i);
+    return n;
+  }
+
+  public Duration min()
+  {
+    long x = min.get();
+    return x == Long.MAX_VALUE ? null : Duration.make(x);
+  }
+
+  public Duration max()
+  {
+    return count() == 0 ? null : Duration.make(max.get());
+  }
+
+  public Duration mean()
+  {
+    long n = count();
+    return n == 0 ? null : Duration.make(sum.sum() / n);
+  }
+
+  public Duration percentile(double percent)
+  {
+    if (!(percent >= 0.0 && percent <= 100.0)) throw ArgErr.make("percent must be 0 to 100: " + percent);
+    long ticks = ticksAt(percent);
+    return ticks < 0 ? null : Duration.make(ticks);
+  }
+
+  /**
+   * Ticks at the given percentile or -1 if empty.
+   */
+  private long ticksAt(double percent)
+  {
+    long n = count();
+    if (n == 0) return -1L;
+    long rank = Math.max(1L, (long)Math.ceil(percent / 100.0 * n));
+    long acc = 0;
+
+    // the last bucket holds every value past 2^43 ticks so its upper
+    // bound is meaningless; any rank beyond the others is at most max
+    for (int i=0; i<BUCKETS-1; ++i)
+    {
+      acc += counts.get(i);
+      if (acc >= rank) return Math.max(Math.min(upper(i), max.get()), min.get());
+    }
+    return max.get();
+  }
+
+  public String toStr()
+  {
+    long n = count();
+    if (n == 0) return "count=0";
+    StringBuilder s = new StringBuilder();
+    s.append("count=").append(n)
+     .append(" mean=").append(mean().toLocale())
+     .append(" p50=").append(Duration.make(ticksAt(50.0)).toLocale())
+     .append(" p90=").append(Duration.make(ticksAt(90.0)).toLocale())
+     .append(" p99=").append(Duration.make(ticksAt(99.0)).toLocale())
+     .append(" p999=").append(Duration.make(ticksAt(99.9)).toLocale())
+     .append(" max=").append(Duration.make(max.get()).toLocale());
+    return s.toString();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Buckets
+//////////////////////////////////////////////////////////////////////////
+
+  /** Bucket index for the given non-negative ticks */
+  static int index(long ticks)
+  {
+    if (ticks < SUB) return (int)ticks;
+    int mag = 63 - Long.numberOfLeadingZeros(ticks);
+    if (mag > MAX_MAG) return BUCKETS - 1;
+    return ((mag - SUB_BITS + 1) << SUB_BITS) + (int)((ticks >>> (mag - SUB_BITS)) & (SUB - 1));
+  }
+
+  /** Largest ticks which map to the given bucket index */
+  static long upper(int index)
+  {
+    if (index < SUB) return index;
+    int mag = (index >>> SUB_BITS) + SUB_BITS - 1;
+    long lower = (long)(SUB + (index & (SUB - 1))) << (mag - SUB_BITS);
+    return lower + (1L << (mag - SUB_BITS)) - 1L;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final int SUB_BITS = 5;                         // 32 sub-buckets per power of two
+  private static final int SUB      = 1 << SUB_BITS;
+  private static final int MAX_MAG  = 43;                        // 2^43ns is about 2.4 hours
+  private static final int BUCKETS  = (MAX_MAG - SUB_BITS + 2) << SUB_BITS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();                 // total ticks for mean
+  private final AtomicLong max = new AtomicLong();               // largest ticks recorded
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE); // smallest ticks recorded
+}
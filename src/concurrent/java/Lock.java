@@ -20,7 +20,7 @@ public final class Lock
     return new Lock(new java.util.concurrent.locks.ReentrantLock());
   }
 
-  private Lock(java.util.concurrent.locks.Lock java)
+  Lock(java.util.concurrent.locks.Lock java)
   {
     this.java = java;
   }
@@ -0,0 +1,452 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+package fan.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import fan.sys.*;
+
+/**
+ * Pipeline is a ring buffer of slots indexed by sequence & mask.
+ * Publishers claim sequences with a CAS on 'next', write the slot, then
+ * mark it published by storing its sequence in 'published'.  The first
+ * stage follows the published sequences, each later stage follows the
+ * sequence of the stage before it, and publishers may not reuse a slot
+ * until the last stage has passed it.  Stopping sets the sign bit of
+ * 'next' so no more sequences can be claimed and the stages know the
+ * final sequence to drain to.
+ */
+public class Pipeline
+  extends FanObj
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Construction
+//////////////////////////////////////////////////////////////////////////
+
+  public static Pipeline make() { return make(null); }
+  public static Pipeline make(Func func)
+  {
+    Pipeline self = new Pipeline();
+    make$(self, func);
+    return self;
+  }
+
+  public static void make$(Pipeline self) { make$(self, null); }
+  public static void make$(Pipeline self, Func itBlock)
+  {
+    if (itBlock != null)
+    {
+      itBlock.enterCtor(self);
+      itBlock.call(self);
+      itBlock.exitCtor();
+    }
+    if (self.stages == null || self.stages.sz() == 0) throw ArgErr.make("Pipeline.stages is empty");
+    if (self.capacity < 1 || self.capacity > (1 << 30)) throw ArgErr.make("Pipeline.capacity must be 1 to 2^30, not " + self.capacity);
+    if (self.maxBatch < 1) throw ArgErr.make("Pipeline.maxBatch must be >= 1, not " + self.maxBatch);
+
+    int cap = Integer.highestOneBit((int)self.capacity);
+    if (cap < self.capacity) cap <<= 1;
+    self.capacity = cap;
+    self.init();
+  }
+
+  private void init()
+  {
+    int cap = (int)capacity;
+    this.mask      = cap - 1;
+    this.slots     = new Object[cap];
+    this.published = new AtomicLongArray(cap);
+    for (int i=0; i<cap; ++i) published.set(i, -1L);
+    this.spin = waitStrategy == PipelineWait.spin;
+    this.park = waitStrategy == PipelineWait.park;
+
+    int n = stages.sz();
+    this.stageThreads = new Stage[n];
+    for (int i=0; i<n; ++i)
+      stageThreads[i] = new Stage(this, i, (Func)stages.get(i), i == 0 ? null : stageThreads[i-1]);
+    this.first = stageThreads[0];
+    this.last  = stageThreads[n-1];
+    for (int i=0; i<n; ++i) stageThreads[i].start();
+  }
+
+  public Type typeof()
+  {
+    if (type == null) type = Type.find("concurrent::Pipeline");
+    return type;
+  }
+  private static Type type;
+
+//////////////////////////////////////////////////////////////////////////
+// Publish
+//////////////////////////////////////////////////////////////////////////
+
+  public final long publish(Object event)
+  {
+    event = checkImmutable(event);
+
+    // claim the next sequence
+    long seq;
+    while (true)
+    {
+      long n = next.get();
+      if (n < 0L) throw Err.make("Pipeline is stopped [" + name + "]");
+      if (next.compareAndSet(n, n+1)) { seq = n; break; }
+    }
+
+    // wait until the last stage is done with the slot's previous use
+    long wrap = seq - slots.length;
+    while (wrap > last.get())
+    {
+      if (killed) throw Err.make("Pipeline is killed [" + name + "]");
+      if (spin) onSpinWait();
+      else if (park) LockSupport.parkNanos(PUBLISH_PARK);
+      else Thread.yield();
+    }
+
+    write(seq, event);
+    return seq;
+  }
+
+  public final Long tryPublish(Object event)
+  {
+    event = checkImmutable(event);
+    while (true)
+    {
+      long n = next.get();
+      if (n < 0L) throw Err.make("Pipeline is stopped [" + name + "]");
+      if (n - slots.length > last.get()) return null;
+      if (next.compareAndSet(n, n+1))
+      {
+        write(n, event);
+        return Long.valueOf(n);
+      }
+    }
+  }
+
+  private void write(long seq, Object event)
+  {
+    int i = (int)seq & mask;
+    slots[i] = event;
+    if (park)
+    {
+      published.set(i, seq);
+      first.signal();
+    }
+    else
+    {
+      published.lazySet(i, seq);
+    }
+  }
+
+  private static Object checkImmutable(Object val)
+  {
+    if (val == null || FanObj.isImmutable(val))
+      return val;
+    else
+      throw NotImmutableErr.make();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  public final long size()
+  {
+    return (next.get() & Long.MAX_VALUE) - (last.get() + 1L);
+  }
+
+  public final boolean isStopped()
+  {
+    return next.get() < 0L;
+  }
+
+  public final boolean isDone()
+  {
+    if (!isStopped()) return false;
+    for (int i=0; i<stageThreads.length; ++i)
+      if (!stageThreads[i].done) return false;
+    return true;
+  }
+
+  public final Pipeline stop()
+  {
+    while (true)
+    {
+      long n = next.get();
+      if (n < 0L || next.compareAndSet(n, n | Long.MIN_VALUE)) break;
+    }
+    for (int i=0; i<stageThreads.length; ++i) LockSupport.unpark(stageThreads[i]);
+    return this;
+  }
+
+  public final Pipeline kill()
+  {
+    killed = true;
+    return stop();
+  }
+
+  public final Pipeline join() { return join(null); }
+  public final Pipeline join(Duration timeout)
+  {
+    if (!isStopped()) throw Err.make("Pipeline is not stopped");
+    long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.ticks();
+    try
+    {
+      for (int i=0; i<stageThreads.length; ++i)
+      {
+        Stage s = stageThreads[i];
+        while (s.isAlive())
+        {
+          long left = deadline - System.nanoTime();
+          if (left <= 0L) throw TimeoutErr.make("Pipeline.join timed out");
+          s.join(Math.max(1L, Math.min(left / 1000000L, Long.MAX_VALUE / 2)));
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      throw InterruptedErr.make(e);
+    }
+    return this;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public Object trap(String name, List args)
+  {
+    if (name.equals("dump")) return dump(args);
+    return super.trap(name, args);
+  }
+
+  public final Object dump(List args)
+  {
+    fan.sys.OutStream out = fan.sys.Env.cur().out();
+    if (args != null && args.size() > 0)
+      out = (fan.sys.OutStream)args.get(0);
+    try
+    {
+      long n = next.get();
+      out.printLine("Pipeline");
+      out.printLine("  name:      " + name);
+      out.printLine("  capacity:  " + capacity + " (size " + size() + ")");
+      out.printLine("  wait:      " + waitStrategy + " (maxBatch " + maxBatch + ")");
+      out.printLine("  state:     " + (killed ? "killed" : n < 0L ? (isDone() ? "done" : "stopping") : "running"));
+      out.printLine("  claimed:   " + (n & Long.MAX_VALUE));
+      for (int i=0; i<stageThreads.length; ++i)
+      {
+        Stage s = stageThreads[i];
+        out.printLine("  stage " + i + ":   seq " + s.get() + " (batches " + s.batches + ", errs " + s.errs + (s.done ? ", done" : "") + ")");
+      }
+    }
+    catch (Exception e) { out.printLine("  " + e + "\n"); }
+    return out;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Stage
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * StagePad and StageSeq pad a stage's sequence onto its own cache
+   * line, so stages polling each other's progress do not slow down
+   * writes to the neighboring fields.
+   */
+  static class StagePad extends Thread
+  {
+    StagePad(String name) { super(name); }
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+
+  static class StageSeq extends StagePad
+  {
+    StageSeq(String name) { super(name); }
+    volatile long seq = -1L;  // last sequence processed
+    long p9, p10, p11, p12, p13, p14, p15;
+
+    final long get() { return seq; }
+  }
+
+  /**
+   * Stage is the dedicated thread which runs one stage's function
+   * over every slot once the previous stage is done with it.
+   */
+  static final class Stage extends StageSeq
+  {
+    Stage(Pipeline p, int index, Func func, Stage prev)
+    {
+      super(p.name + "-Stage-" + index);
+      setDaemon(true);
+      this.p     = p;
+      this.index = index;
+      this.func  = func;
+      this.prev  = prev;
+      if (prev != null) prev.nextStage = this;
+    }
+
+    public void run()
+    {
+      Pipeline p = this.p;
+      boolean isLast = nextStage == null;
+      long batch = p.maxBatch;
+      long nextSeq = 0L;
+      try
+      {
+        while (!p.killed)
+        {
+          // find the last sequence ready for us
+          long avail = available(nextSeq, batch);
+          if (avail < nextSeq)
+          {
+            if (finished(nextSeq)) break;
+            idle(nextSeq);
+            continue;
+          }
+
+          // catch up on everything available as one batch
+          long end = Math.min(avail, nextSeq + batch - 1L);
+          for (long s = nextSeq; s <= end; ++s)
+          {
+            int i = (int)s & p.mask;
+            Object v = p.slots[i];
+            if (v != skipped)
+            {
+              try
+              {
+                v = func.call(v);
+              }
+              catch (Throwable e)
+              {
+                errs++;
+                v = skipped;
+                Log.get("concurrent").err("Pipeline " + p.name + " stage " + index + " failed on seq " + s, e);
+              }
+            }
+            p.slots[i] = isLast ? null : v;
+          }
+          batches++;
+
+          // publish our progress
+          if (p.park) { seq = end; if (nextStage != null) nextStage.signal(); }
+          else SEQ.lazySet(this, end);
+          nextSeq = end + 1L;
+        }
+      }
+      finally
+      {
+        done = true;
+        if (nextStage != null) LockSupport.unpark(nextStage);
+      }
+    }
+
+    /** Last sequence available to process starting at nextSeq */
+    private long available(long nextSeq, long batch)
+    {
+      if (prev != null) return prev.get();
+      long s = nextSeq;
+      long limit = nextSeq + batch;
+      AtomicLongArray published = p.published;
+      int mask = p.mask;
+      while (s < limit && published.get((int)s & mask) == s) s++;
+      return s - 1L;
+    }
+
+    /** True once there are no more sequences for us to process */
+    private boolean finished(long nextSeq)
+    {
+      if (prev != null) return prev.done && prev.get() < nextSeq;
+      long n = p.next.get();
+      return n < 0L && nextSeq >= (n & Long.MAX_VALUE);
+    }
+
+    private void idle(long nextSeq)
+    {
+      if (p.spin) { onSpinWait(); return; }
+      if (!p.park) { Thread.yield(); return; }
+      waiting = true;
+      if (available(nextSeq, 1L) < nextSeq && !finished(nextSeq) && !p.killed)
+        LockSupport.parkNanos(this, STAGE_PARK);
+      waiting = false;
+    }
+
+    /** Wake this stage if it is parked waiting for work */
+    final void signal()
+    {
+      if (waiting) LockSupport.unpark(this);
+    }
+
+    final Pipeline p;
+    final int index;            // position in stages
+    final Func func;            // stage function
+    final Stage prev;           // previous stage or null if first
+    Stage nextStage;            // next stage or null if last
+    volatile boolean waiting;   // parked waiting for work
+    volatile boolean done;      // thread has exited
+    long batches;               // number of batches processed
+    long errs;                  // number of events which raised exceptions
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Spin Wait
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Hint to the processor that we are in a spin loop.  Thread.onSpinWait
+   * is Java 9+ so it is looked up once; on Java 8 this is a plain spin.
+   */
+  static void onSpinWait()
+  {
+    if (SPIN_WAIT == null) return;
+    try { SPIN_WAIT.invokeExact(); } catch (Throwable e) {}
+  }
+
+  private static MethodHandle spinWait()
+  {
+    try
+    {
+      return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+    }
+    catch (Throwable e)
+    {
+      return null;
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  private static final MethodHandle SPIN_WAIT = spinWait();
+  private static final AtomicLongFieldUpdater SEQ = AtomicLongFieldUpdater.newUpdater(StageSeq.class, "seq");
+  private static final Object skipped = new Object();   // slot value after a stage raised an exception
+  private static final long STAGE_PARK   = 1000000L;    // max park in ticks while waiting for work
+  private static final long PUBLISH_PARK = 10000L;      // park in ticks while waiting for a free slot
+
+  public String name = "Pipeline";
+  public long capacity = 1024;
+  public List stages = (List)List.make(Sys.FuncType, 0).toImmutable();
+  public PipelineWait waitStrategy = PipelineWait.yield;
+  public long maxBatch = 256;
+
+  private final AtomicLong next = new AtomicLong();  // next sequence to claim, sign bit set once stopped
+  private int mask;                                   // capacity - 1
+  private Object[] slots;                             // ring of event values
+  private AtomicLongArray published;                  // sequence last published to each slot
+  private Stage[] stageThreads;                       // thread per stage
+  private Stage first, last;                          // first and last stage
+  private boolean spin, park;                         // wait strategy
+  volatile boolean killed;                            // kill requested
+}
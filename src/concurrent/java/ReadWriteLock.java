@@ -0,0 +1,75 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+package fan.concurrent;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import fan.sys.*;
+
+public final class ReadWriteLock
+  extends FanObj
+  implements java.util.concurrent.locks.ReadWriteLock
+{
+  public static ReadWriteLock makeReentrant() { return makeReentrant(false); }
+  public static ReadWriteLock makeReentrant(boolean fair)
+  {
+    return new ReadWriteLock(new ReentrantReadWriteLock(fair));
+  }
+
+  private ReadWriteLock(java.util.concurrent.locks.ReadWriteLock java)
+  {
+    this.readLock  = new Lock(java.readLock());
+    this.writeLock = new Lock(java.writeLock());
+  }
+
+  public Type typeof()
+  {
+    if (type == null) type = Type.find("concurrent::ReadWriteLock");
+    return type;
+  }
+  private static Type type;
+
+  public final Lock readLock()
+  {
+    return readLock;
+  }
+
+  public final Lock writeLock()
+  {
+    return writeLock;
+  }
+
+  public final Object read(Func f)
+  {
+    readLock.lock();
+    try
+    {
+      return f.call();
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  public final Object write(Func f)
+  {
+    writeLock.lock();
+    try
+    {
+      return f.call();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  private final Lock readLock;
+  private final Lock writeLock;
+
+}
@@ -34,13 +34,18 @@ public class Scheduler implements Runnable
 //////////////////////////////////////////////////////////////////////////
 
   /**
-   * Schedule the work item to be executed after
-   * the given duration of nanoseconds has elapsed.
+   * Schedule the work item to be executed after the given duration
+   * of nanoseconds has elapsed.  Return the node which may be passed
+   * to cancel to remove it from the queue before it is executed.
    */
-  public synchronized void schedule(long ns, Work work)
+  public synchronized Node schedule(long ns, Work work)
   {
-    // insert into our linked list
-    boolean newHead = add(ns, work);
+    // create new node and insert into our heap
+    Node node = new Node(this);
+    node.deadline = System.nanoTime() + ns;
+    node.work = work;
+    node.seq = seq++;
+    add(node);
 
     // if we haven't launched our thread yet, then launch it
     if (thread == null)
@@ -49,57 +54,23 @@ public class Scheduler implements Runnable
       thread.start();
     }
 
-    // if we added to the head of our linked list, then we
-    // modified our earliest deadline, so we need to notify thread
-    if (newHead) notifyAll();
+    // if we added to the head of our heap, then we modified
+    // our earliest deadline, so we need to notify thread
+    if (node.index == 0) notifyAll();
+    return node;
   }
 
   /**
-   * Add the work item into the linked list so that the list
-   * is always sorted by earliest deadline to oldest deadline.
-   * Return true if we have a new head which changes our
-   * next earliest deadline.
+   * Remove the given node from the queue if still pending.  The node's
+   * work is not notified.  Return true if removed, or false if it
+   * was already executed or cancelled.
    */
-  private boolean add(long ns, Work work)
+  public synchronized boolean cancel(Node node)
   {
-    // create new node for our linked list
-    Node node = new Node();
-    node.deadline = System.nanoTime() + ns;
-    node.work = work;
-
-    // if no items, this is easy
-    if (head == null)
-    {
-      head = node;
-      return true;
-    }
-
-    // if new item has earliest deadline it becomes new head
-    if (node.deadline < head.deadline)
-    {
-      node.next = head;
-      head = node;
-      return true;
-    }
-
-    // find insertion point in linked list
-    Node last = head, cur = head.next;
-    while (cur != null)
-    {
-      if (node.deadline < cur.deadline)
-      {
-        node.next = cur;
-        last.next = node;
-        return false;
-      }
-
-      last = cur;
-      cur = cur.next;
-    }
-
-    // this node has the oldest deadline, append to linked list
-    last.next = node;
-    return false;
+    int i = node.index;
+    if (i < 0 || i >= size || heap[i] != node) return false;
+    removeAt(i);
+    return true;
   }
 
   /**
@@ -112,25 +83,107 @@ public class Scheduler implements Runnable
     alive = false;
     try { thread.interrupt(); } catch (Throwable e) {}
 
-    // call cancel on everything in queue
-    Node node = head;
-    while (node != null)
+    // clear queue, then call cancel on everything that was in it
+    Node[] nodes = heap;
+    int n = size;
+    heap = new Node[16];
+    size = 0;
+    for (int i=0; i<n; ++i)
     {
-      try { node.work.cancel(); } catch (Throwable e) { e.printStackTrace(); }
-      node = node.next;
+      nodes[i].index = -1;
+      try { nodes[i].work.cancel(); } catch (Throwable e) { e.printStackTrace(); }
     }
-
-    // clear queue
-    head = null;
   }
 
+  /**
+   * Number of pending work items
+   */
+  public synchronized int size() { return size; }
+
   /**
    * Debug
    */
-  public void dump()
+  public synchronized void dump()
+  {
+    for (int i=0; i<size; ++i)
+      System.out.println("  " + heap[i]);
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Heap
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Insert node into our binary min-heap ordered by deadline.
+   */
+  private void add(Node node)
+  {
+    if (size == heap.length)
+    {
+      Node[] temp = new Node[size*2];
+      System.arraycopy(heap, 0, temp, 0, size);
+      heap = temp;
+    }
+    siftUp(size++, node);
+  }
+
+  /**
+   * Remove the node at the given index from the heap.
+   */
+  private Node removeAt(int i)
+  {
+    Node node = heap[i];
+    node.index = -1;
+    int last = --size;
+    Node moved = heap[last];
+    heap[last] = null;
+    if (i != last)
+    {
+      siftDown(i, moved);
+      if (heap[i] == moved) siftUp(i, moved);
+    }
+
+    // shrink if heap got large and is now mostly empty
+    if (heap.length > 64 && size < heap.length/4)
+    {
+      Node[] temp = new Node[heap.length/2];
+      System.arraycopy(heap, 0, temp, 0, size);
+      heap = temp;
+    }
+    return node;
+  }
+
+  private void siftUp(int i, Node node)
+  {
+    while (i > 0)
+    {
+      int parent = (i - 1) >>> 1;
+      Node p = heap[parent];
+      if (!node.before(p)) break;
+      heap[i] = p;
+      p.index = i;
+      i = parent;
+    }
+    heap[i] = node;
+    node.index = i;
+  }
+
+  private void siftDown(int i, Node node)
   {
-    for (Node n = head; n != null; n = n.next)
-      System.out.println("  " + n);
+    int half = size >>> 1;
+    while (i < half)
+    {
+      int child = 2*i + 1;
+      Node c = heap[child];
+      int right = child + 1;
+      if (right < size && heap[right].before(c)) c = heap[child = right];
+      if (!c.before(node)) break;
+      heap[i] = c;
+      c.index = i;
+      i = child;
+    }
+    heap[i] = node;
+    node.index = i;
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -144,11 +197,13 @@ public class Scheduler implements Runnable
       try
       {
         Work work = null;
+        long deadline = 0L;
         synchronized (this)
         {
           // if no work ready to go, then wait for next deadline
           long now = System.nanoTime();
-          if (head == null || head.deadline > now)
+          Node head = size > 0 ? heap[0] : null;
+          if (head == null || head.deadline - now > 0)
           {
             long toSleep = head != null ? head.deadline - now : Long.MAX_VALUE;
             long ms = toSleep / 1000000L;
@@ -158,12 +213,13 @@ public class Scheduler implements Runnable
           }
 
           // dequeue the next work item while holding lock
-          work = head.work;
-          head = head.next;
+          deadline = head.deadline;
+          work = removeAt(0).work;
         }
 
         // work callback
-        work.work();
+        if (ActorEvents.recording) ActorEvents.runScheduled(name, work, deadline);
+        else work.work();
       }
       catch (Throwable e)
       {
@@ -173,20 +229,40 @@ public class Scheduler implements Runnable
   }
 
 //////////////////////////////////////////////////////////////////////////
-// Node (linked list of work)
+// Node (entry in heap of work)
 //////////////////////////////////////////////////////////////////////////
 
-  static class Node
+  public static class Node
   {
+    Node(Scheduler scheduler) { this.scheduler = scheduler; }
+
+    /**
+     * Remove from scheduler if still pending
+     */
+    public final boolean cancel() { return scheduler.cancel(this); }
+
     public String toString()
     {
       long ms = (deadline - System.nanoTime()) / 1000000L;
       return "Deadline: " + ms + "ms  Work: " + work;
     }
 
+    /**
+     * Order by deadline, then by sequence so that work
+     * with equal deadlines runs in the order scheduled
+     */
+    final boolean before(Node that)
+    {
+      long diff = deadline - that.deadline;
+      if (diff != 0L) return diff < 0L;
+      return seq < that.seq;
+    }
+
+    final Scheduler scheduler;
     long deadline;   // System.nanoTime
+    long seq;        // sequence number to break ties
     Work work;       // item of work to execute
-    Node next;       // next node in linked list
+    int index = -1;  // index in heap or -1 if not queued
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -203,8 +279,10 @@ public class Scheduler implements Runnable
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
-  volatile boolean alive;  // is this scheduler alive
-  final String name;       // actor pool name
-  Thread thread;           // thread currently being used
-  Node head;               // linked list sorted by deadline
+  volatile boolean alive;        // is this scheduler alive
+  final String name;             // actor pool name
+  Thread thread;                 // thread currently being used
+  Node[] heap = new Node[16];    // binary min-heap sorted by deadline
+  int size;                      // number of nodes in heap
+  long seq;                      // counter for Node.seq
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+package fan.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import fan.sys.*;
+
+public final class StampedLock
+  extends FanObj
+{
+  public static StampedLock make()
+  {
+    return new StampedLock();
+  }
+
+  private StampedLock()
+  {
+    this.java = new java.util.concurrent.locks.StampedLock();
+  }
+
+  public Type typeof()
+  {
+    if (type == null) type = Type.find("concurrent::StampedLock");
+    return type;
+  }
+  private static Type type;
+
+//////////////////////////////////////////////////////////////////////////
+// Write
+//////////////////////////////////////////////////////////////////////////
+
+  public final long writeLock()
+  {
+    return this.java.writeLock();
+  }
+
+  public final long tryWriteLock() { return tryWriteLock(null); }
+  public final long tryWriteLock(Duration timeout)
+  {
+    if (timeout == null || timeout.ticks() <= 0L)
+      return this.java.tryWriteLock();
+    try
+    {
+      return this.java.tryWriteLock(timeout.ticks(), TimeUnit.NANOSECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      throw InterruptedErr.make(e);
+    }
+  }
+
+  public final void unlockWrite(long stamp)
+  {
+    try
+    {
+      this.java.unlockWrite(stamp);
+    }
+    catch (IllegalMonitorStateException e)
+    {
+      throw Err.make("Stamp does not match write lock: " + stamp);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Read
+//////////////////////////////////////////////////////////////////////////
+
+  public final long readLock()
+  {
+    return this.java.readLock();
+  }
+
+  public final long tryReadLock() { return tryReadLock(null); }
+  public final long tryReadLock(Duration timeout)
+  {
+    if (timeout == null || timeout.ticks() <= 0L)
+      return this.java.tryReadLock();
+    try
+    {
+      return this.java.tryReadLock(timeout.ticks(), TimeUnit.NANOSECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      throw InterruptedErr.make(e);
+    }
+  }
+
+  public final void unlockRead(long stamp)
+  {
+    try
+    {
+      this.java.unlockRead(stamp);
+    }
+    catch (IllegalMonitorStateException e)
+    {
+      throw Err.make("Stamp does not match read lock: " + stamp);
+    }
+  }
+
+  public final void unlock(long stamp)
+  {
+    try
+    {
+      this.java.unlock(stamp);
+    }
+    catch (IllegalMonitorStateException e)
+    {
+      throw Err.make("Stamp does not match lock: " + stamp);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Optimistic
+//////////////////////////////////////////////////////////////////////////
+
+  public final long tryOptimisticRead()
+  {
+    return this.java.tryOptimisticRead();
+  }
+
+  public final boolean validate(long stamp)
+  {
+    return stamp != 0L && this.java.validate(stamp);
+  }
+
+  public final long tryConvertToWriteLock(long stamp)
+  {
+    return this.java.tryConvertToWriteLock(stamp);
+  }
+
+  public final Object optimisticRead(Func f)
+  {
+    // values read optimistically may be inconsistent, so an exception
+    // is only raised if no writer intervened
+    long stamp = this.java.tryOptimisticRead();
+    if (stamp != 0L)
+    {
+      try
+      {
+        Object r = f.call();
+        if (this.java.validate(stamp)) return r;
+      }
+      catch (RuntimeException e)
+      {
+        if (this.java.validate(stamp)) throw e;
+      }
+    }
+
+    stamp = this.java.readLock();
+    try
+    {
+      return f.call();
+    }
+    finally
+    {
+      this.java.unlockRead(stamp);
+    }
+  }
+
+  public final Object write(Func f)
+  {
+    long stamp = this.java.writeLock();
+    try
+    {
+      return f.call();
+    }
+    finally
+    {
+      this.java.unlockWrite(stamp);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Status
+//////////////////////////////////////////////////////////////////////////
+
+  public final boolean isWriteLocked()
+  {
+    return this.java.isWriteLocked();
+  }
+
+  public final boolean isReadLocked()
+  {
+    return this.java.isReadLocked();
+  }
+
+  public final Lock asReadLock()
+  {
+    return new Lock(this.java.asReadLock());
+  }
+
+  public final Lock asWriteLock()
+  {
+    return new Lock(this.java.asWriteLock());
+  }
+
+  private final java.util.concurrent.locks.StampedLock java;
+
+}
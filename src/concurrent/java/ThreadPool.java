@@ -7,6 +7,8 @@
 //
 package fan.concurrent;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.util.LinkedList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -16,6 +18,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * ThreadPool manages a pool of threads optimized for the Actor framework.
  */
 public class ThreadPool
+  extends ActorExecutor
 {
 
 //////////////////////////////////////////////////////////////////////////
@@ -26,14 +29,29 @@ public class ThreadPool
    * Construct with max number of threads.
    */
   public ThreadPool(String name, int max)
+  {
+    this(name, max, max, 0L);
+  }
+
+  /**
+   * Construct an adaptive pool which keeps between min and max threads,
+   * and adjusts its thread limit to keep the time work waits for a thread
+   * near the target nanoseconds.  A target of zero disables adaptive
+   * sizing and always allows max threads.
+   */
+  public ThreadPool(String name, int min, int max, long target)
   {
     this.name       = name;
+    this.min        = min;
     this.max        = max;
+    this.target     = target;
+    this.limit      = target <= 0 ? max : Math.min(max, Math.max(min, Runtime.getRuntime().availableProcessors()));
     this.idleTime   = 5000; // 5sec
     this.idle       = new LinkedList();
     this.pending    = new LinkedList();
+    this.pendingTicks = target <= 0 ? null : new LinkedList();
     this.hasPending = new AtomicBoolean();
-    this.workers    = new HashMap(max*3);
+    this.workers    = new HashMap(Math.min(max, 1000)*3);
     this.state      = RUNNING;
   }
 
@@ -95,6 +113,7 @@ public class ThreadPool
       if (work == null) break;
       work._kill();
     }
+    if (pendingTicks != null) pendingTicks.clear();
     hasPending.set(false);
 
     // interupt each thread
@@ -140,6 +159,7 @@ public class ThreadPool
    * of threads is less than max, then launch a new thread to
    * execute the work.  If the current number of threads is at
    * max, then queue the work until a thread becomes available.
+   * In adaptive mode the current thread limit is used instead of max.
    */
   public synchronized void submit(Work work)
   {
@@ -147,22 +167,55 @@ public class ThreadPool
     Worker worker = (Worker)idle.poll();
     if (worker != null)
     {
+      if (ActorEvents.recording) ActorEvents.submit(name, work, "idle", pending.size(), workers.size());
       worker.post(work);
       return;
     }
 
-    // if we are below max, then spawn a new thread
-    if (workers.size() < max)
+    // if we are below limit, then spawn a new thread
+    if (workers.size() < limit)
     {
-      worker = new Worker(name + "-Worker-" + (counter++), work);
-      worker.start();
-      workers.put(worker, worker);
+      if (ActorEvents.recording) ActorEvents.submit(name, work, "spawn", pending.size(), workers.size());
+      spawn(work);
       return;
     }
 
     // queue the runnable until we have an idle thread
+    if (ActorEvents.recording) ActorEvents.submit(name, work, "queued", pending.size(), workers.size());
     pending.addLast(work);
     hasPending.set(true);
+    if (target > 0)
+    {
+      pendingTicks.addLast(Long.valueOf(System.nanoTime()));
+      adapt();
+    }
+  }
+
+  /**
+   * Launch a new worker thread to run the given work.
+   */
+  private void spawn(Work work)
+  {
+    Worker worker = new Worker(name + "-Worker-" + (counter++), work);
+    worker.start();
+    workers.put(worker, worker);
+  }
+
+  /**
+   * Poll the next pending work item or return null.  In adaptive
+   * mode track how long it waited for a thread.
+   */
+  private Work pollPending()
+  {
+    Work work = (Work)pending.poll();
+    if (work == null) return null;
+    hasPending.set(!pending.isEmpty());
+    if (target > 0)
+    {
+      waitSum += System.nanoTime() - ((Long)pendingTicks.poll()).longValue();
+      waitCount++;
+    }
+    return work;
   }
 
   /**
@@ -173,11 +226,21 @@ public class ThreadPool
    */
   synchronized boolean ready(Worker w)
   {
+    // in adaptive mode let this worker die if we are over our limit
+    if (target > 0 && state == RUNNING)
+    {
+      adapt();
+      if (workers.size() > limit)
+      {
+        free(w);
+        return false;
+      }
+    }
+
     // if we have a pending work, then immediately reuse the worker
-    Work work = (Work)pending.poll();
+    Work work = pollPending();
     if (work != null)
     {
-      hasPending.set(!pending.isEmpty());
       w.post(work);
       return true;
     }
@@ -204,12 +267,107 @@ public class ThreadPool
     notifyAll();
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Adaptive
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Current max number of threads.  This is always max unless the
+   * pool is adaptive.
+   */
+  synchronized int limit() { return limit; }
+
+  /**
+   * Adjust the thread limit at most once per adjustInterval.  The
+   * limit grows while work waits longer than the target for a thread
+   * and the process has spare CPU (threads are blocked on I/O or locks),
+   * since more threads will reduce the wait.  If the CPU is saturated
+   * more threads only add context switches, so the limit shrinks towards
+   * the number of processors.  If work no longer waits and threads are
+   * idle the limit shrinks to release the spare threads.  Must be called
+   * while holding the lock.
+   */
+  private void adapt()
+  {
+    long now = System.nanoTime();
+    if (now - lastAdapt < adjustInterval) return;
+    lastAdapt = now;
+
+    // measured wait is the average for work which got a thread since
+    // the last check, or the age of the oldest work still waiting
+    long wait = waitCount == 0 ? 0 : waitSum / waitCount;
+    Long oldest = (Long)pendingTicks.peek();
+    if (oldest != null) wait = Math.max(wait, now - oldest.longValue());
+    waitSum = 0;
+    waitCount = 0;
+    lastWait = wait;
+    lastCpu = cpuLoad();
+
+    boolean saturated = lastCpu >= cpuHigh;
+    int floor = Math.max(min, Math.min(max, processors));
+    if (wait > target && !saturated)
+    {
+      if (limit >= max) return;
+      limit = Math.min(max, limit + Math.max(1, limit / 2));
+
+      // immediately spawn threads for the work which is waiting
+      while (workers.size() < limit)
+      {
+        Work work = pollPending();
+        if (work == null) break;
+        spawn(work);
+      }
+    }
+    else if (saturated && wait > target)
+    {
+      if (limit > floor) limit = Math.max(floor, limit - Math.max(1, limit / 4));
+    }
+    else if (wait <= target / 2 && !idle.isEmpty())
+    {
+      limit = Math.max(min, limit - Math.max(1, idle.size() / 2));
+
+      // wake up the oldest idle workers over the limit so they can die
+      int excess = workers.size() - limit;
+      for (int i=0; i<excess; ++i)
+      {
+        Worker w = (Worker)idle.pollLast();
+        if (w == null) break;
+        w.post(null);
+      }
+    }
+  }
+
+  /**
+   * Recent CPU load of this process from 0.0 to 1.0 across all
+   * processors, or -1 if not available on this JVM.
+   */
+  static double cpuLoad()
+  {
+    try
+    {
+      if (os instanceof com.sun.management.OperatingSystemMXBean)
+        return ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuLoad();
+      double load = os.getSystemLoadAverage();
+      return load < 0 ? -1 : load / processors;
+    }
+    catch (Throwable e)
+    {
+      return -1;
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Debug
 //////////////////////////////////////////////////////////////////////////
 
   public void dump(fan.sys.OutStream out)
   {
+    if (target > 0)
+    {
+      out.printLine("  adaptive:   " + min + ".." + max + " threads (limit " + limit() + ")");
+      out.printLine("  wait:       " + fan.sys.Duration.make(lastWait).toLocale() + " (target " + fan.sys.Duration.make(target).toLocale() + ")");
+      out.printLine("  cpu:        " + (lastCpu < 0 ? "unknown" : Math.round(lastCpu * 100) + "%"));
+    }
     out.printLine("  hasPending: " + hasPending());
     out.printLine("  pending:    " + pending.size());
     out.printLine("  idle:       " + idle.size());
@@ -218,18 +376,7 @@ public class ThreadPool
     while (it.hasNext())
     {
       Worker w = (Worker)it.next();
-      out.print("  ").print(w.getName()).print(": ");
-      Work work = w.work;
-      if (work == null)
-        out.print("idle");
-      else
-        out.print(work);
-      if (work instanceof Actor)
-      {
-        Actor actor = (Actor)work;
-        out.print(" [queue: ").print(actor.queueSize()).print("]");
-      }
-      out.printLine();
+      dumpThread(out, w.getName(), w.work);
     }
   }
 
@@ -354,8 +501,15 @@ public class ThreadPool
   static final int STOPPING = 1;
   static final int DONE     = 2;
 
+  static final long adjustInterval = 100_000_000L;  // 100ms between adapt checks
+  static final double cpuHigh = 0.9;                // cpu load considered saturated
+  static final int processors = Runtime.getRuntime().availableProcessors();
+  static final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
   final String name;                // actor pool name
+  final int min;                    // minimum thread limit if adaptive
   final int max;                    // maximum number of threads to use
+  final long target;                // target wait in ns if adaptive, or zero
   final int idleTime;               // time in ms to let threads idle (5sec)
   private volatile int state;       // life cycle state
   private LinkedList idle;          // idle threads waiting for work
@@ -363,4 +517,11 @@ public class ThreadPool
   private LinkedList pending;       // pending working we don't have threads for yet
   private HashMap workers;          // map of all worker threads
   private int counter;              // counter for all threads ever created
+  private int limit;                // current max threads, always max unless adaptive
+  private LinkedList pendingTicks;  // submit time of each pending work if adaptive
+  private long waitSum;             // total wait of work polled since last adapt
+  private int waitCount;            // number of work polled since last adapt
+  private long lastAdapt;           // nanoTime of last adapt check
+  private long lastWait;            // wait measured by last adapt check
+  private double lastCpu = -1;      // cpu load measured by last adapt check
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+package fan.concurrent;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import fan.sys.*;
+
+/**
+ * VirtualThreadPool runs actors on JDK virtual threads instead of a
+ * pool of platform threads.  A virtual thread is started when work is
+ * submitted and we are below max, and it keeps running pending work
+ * until there is none.  We compile against Java 8, so the virtual thread
+ * factory is looked up reflectively and requires Java 21 or later.
+ */
+public class VirtualThreadPool
+  extends ActorExecutor
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct with max number of concurrent virtual threads.
+   */
+  public VirtualThreadPool(String name, int max)
+  {
+    this.name    = name;
+    this.max     = max;
+    this.factory = factory(name + "-Virtual-");
+    this.state   = RUNNING;
+  }
+
+  /**
+   * Create a thread factory for virtual threads or raise
+   * UnsupportedErr if not supported by the current JVM.
+   */
+  static ThreadFactory factory(String prefix)
+  {
+    try
+    {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class cls = Class.forName("java.lang.Thread$Builder");
+      builder = cls.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      return (ThreadFactory)cls.getMethod("factory").invoke(builder);
+    }
+    catch (Throwable e)
+    {
+      throw UnsupportedErr.make("Virtual threads not supported by this JVM: " + System.getProperty("java.version"));
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  public final boolean isStopped()
+  {
+    return state != RUNNING;
+  }
+
+  public final boolean isDone()
+  {
+    if (state == DONE) return true;
+    synchronized (this)
+    {
+      // a runner releases before its final check of pending, so
+      // queued work may still be relaunched while running is zero
+      if (state == RUNNING || running.get() > 0 || !pending.isEmpty()) return false;
+      state = DONE;
+      return true;
+    }
+  }
+
+  public final void stop()
+  {
+    // threads die as soon as they run out of work
+    state = STOPPING;
+  }
+
+  public final void kill()
+  {
+    state = STOPPING;
+
+    // kill all the pending work
+    while (true)
+    {
+      ThreadPool.Work work = (ThreadPool.Work)pending.poll();
+      if (work == null) break;
+      work._kill();
+    }
+
+    // interupt each thread
+    Iterator it = threads.keySet().iterator();
+    while (it.hasNext()) ((Thread)it.next()).interrupt();
+  }
+
+  public final synchronized boolean join(long msTimeout)
+    throws InterruptedException
+  {
+    long deadline = System.nanoTime()/1000000L + msTimeout;
+    while (true)
+    {
+      // if all threads have completed, then return success
+      if (running.get() == 0 && pending.isEmpty()) return true;
+
+      // if we have gone past our deadline, return false
+      long toSleep = deadline - System.nanoTime()/1000000L;
+      if (toSleep <= 0) return false;
+
+      // sleep until a thread exits
+      wait(toSleep);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return if we have pending work awaiting a thread.
+   */
+  final boolean hasPending() { return !pending.isEmpty(); }
+
+  /**
+   * Submit the given work to be run on a new virtual thread.  If we
+   * are already running max threads, then queue the work until one
+   * of the current threads finishes its work.
+   */
+  public final void submit(ThreadPool.Work work)
+  {
+    if (reserve())
+    {
+      if (ActorEvents.recording) ActorEvents.submit(name, work, "spawn", pending.size(), running.get());
+      launch(work);
+    }
+    else
+    {
+      if (ActorEvents.recording) ActorEvents.submit(name, work, "queued", pending.size(), running.get());
+      pending.offer(work);
+
+      // if a thread exited between our reserve and offer,
+      // then we need to launch a thread to pick it up
+      if (reserve())
+      {
+        ThreadPool.Work w = (ThreadPool.Work)pending.poll();
+        if (w != null) launch(w); else release();
+      }
+    }
+  }
+
+  private boolean reserve()
+  {
+    while (true)
+    {
+      int n = running.get();
+      if (n >= max) return false;
+      if (running.compareAndSet(n, n+1)) return true;
+    }
+  }
+
+  private void release()
+  {
+    running.decrementAndGet();
+    synchronized (this) { notifyAll(); }
+  }
+
+  private void launch(ThreadPool.Work work)
+  {
+    Thread t = factory.newThread(new Runner(work));
+    t.start();
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public void dump(fan.sys.OutStream out)
+  {
+    out.printLine("  hasPending: " + hasPending());
+    out.printLine("  pending:    " + pending.size());
+    out.printLine("  threads:    " + running.get());
+    Iterator it = threads.entrySet().iterator();
+    while (it.hasNext())
+    {
+      java.util.Map.Entry e = (java.util.Map.Entry)it.next();
+      dumpThread(out, ((Thread)e.getKey()).getName(), (ThreadPool.Work)e.getValue());
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Runner
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Runner is the body of each virtual thread: execute the initial
+   * work then continue on to pending work until there is none left.
+   */
+  class Runner implements Runnable
+  {
+    Runner(ThreadPool.Work work) { this.work = work; }
+
+    public void run()
+    {
+      Thread t = Thread.currentThread();
+      try
+      {
+        ThreadPool.Work work = this.work;
+        while (work != null)
+        {
+          threads.put(t, work);
+          try { work._work(); } catch (Throwable e) { e.printStackTrace(); }
+          work = (ThreadPool.Work)pending.poll();
+        }
+      }
+      finally
+      {
+        threads.remove(t);
+        release();
+
+        // work might have been queued after our last poll but
+        // before the release, so make sure it gets picked up
+        if (!pending.isEmpty() && reserve())
+        {
+          ThreadPool.Work w = (ThreadPool.Work)pending.poll();
+          if (w != null) launch(w); else release();
+        }
+      }
+    }
+
+    final ThreadPool.Work work;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int RUNNING  = 0;
+  static final int STOPPING = 1;
+  static final int DONE     = 2;
+
+  final String name;                  // actor pool name
+  final int max;                      // max number of concurrent threads
+  private final ThreadFactory factory;  // virtual thread factory
+  private volatile int state;           // life cycle state
+  private final AtomicInteger running = new AtomicInteger();                  // live threads
+  private final ConcurrentLinkedQueue pending = new ConcurrentLinkedQueue();  // work waiting for a thread
+  private final ConcurrentHashMap threads = new ConcurrentHashMap();          // live thread to current work
+}
@@ -0,0 +1,369 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+package fan.concurrent;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WorkStealingPool is an alternate to ThreadPool where each worker
+ * thread owns a deque of work.  Work submitted by a worker thread is
+ * pushed onto its own deque, work submitted by other threads is pushed
+ * onto a shared injection queue, and workers which run out of work
+ * steal from their peers.  Submission never acquires a lock and idle
+ * workers are parked/unparked rather than using wait/notify.
+ */
+public class WorkStealingPool
+  extends ActorExecutor
+{
+
+//////////////////////////////////////////////////////////////////////////
+// Constructor
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Construct with max number of threads.
+   */
+  public WorkStealingPool(String name, int max)
+  {
+    this.name     = name;
+    this.max      = max;
+    this.idleTime = 5000L * 1000000L; // 5sec
+    this.slots    = new AtomicReferenceArray(max);
+    this.state    = RUNNING;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Lifecycle
+//////////////////////////////////////////////////////////////////////////
+
+  public final boolean isStopped()
+  {
+    return state != RUNNING;
+  }
+
+  public final boolean isDone()
+  {
+    if (state == DONE) return true;
+    synchronized (this)
+    {
+      if (state == RUNNING || numWorkers.get() > 0) return false;
+      state = DONE;
+      return true;
+    }
+  }
+
+  public final void stop()
+  {
+    state = STOPPING;
+
+    // immediately wake up all the idle workers so they can die
+    while (wakeIdle());
+  }
+
+  public final void kill()
+  {
+    state = STOPPING;
+
+    // kill all the pending work
+    killAll(global);
+    for (int i=0; i<slots.length(); ++i)
+    {
+      Worker w = (Worker)slots.get(i);
+      if (w != null) killAll(w.deque);
+    }
+
+    // interupt each thread
+    while (wakeIdle());
+    for (int i=0; i<slots.length(); ++i)
+    {
+      Worker w = (Worker)slots.get(i);
+      if (w != null) w.interrupt();
+    }
+  }
+
+  private void killAll(java.util.Queue q)
+  {
+    while (true)
+    {
+      ThreadPool.Work work = (ThreadPool.Work)q.poll();
+      if (work == null) break;
+      queued.decrementAndGet();
+      work._kill();
+    }
+  }
+
+  public final synchronized boolean join(long msTimeout)
+    throws InterruptedException
+  {
+    long deadline = System.nanoTime()/1000000L + msTimeout;
+    while (true)
+    {
+      // if all workers have completed, then return success
+      if (numWorkers.get() == 0) return true;
+
+      // if we have gone past our deadline, return false
+      long toSleep = deadline - System.nanoTime()/1000000L;
+      if (toSleep <= 0) return false;
+
+      // sleep until a worker exits
+      wait(toSleep);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Work Management
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Return if we have work queued which no worker has picked up yet.
+   */
+  final boolean hasPending() { return queued.get() > 0; }
+
+  /**
+   * Submit the given work to be run by a thread in this pool.  If
+   * called on one of our worker threads, then the work is pushed onto
+   * that worker's own deque, otherwise onto the shared injection queue.
+   * Then wake an idle worker, or if there are none and we are below max
+   * launch a new worker.
+   */
+  public final void submit(ThreadPool.Work work)
+  {
+    queued.incrementAndGet();
+    Thread t = Thread.currentThread();
+    if (t instanceof Worker && ((Worker)t).pool == this)
+      ((Worker)t).deque.offerLast(work);
+    else
+      global.offer(work);
+    String disposition = signal();
+    if (ActorEvents.recording) ActorEvents.submit(name, work, disposition, queued.get() - 1, numWorkers.get());
+  }
+
+  /**
+   * Wake an idle worker or spawn a new one if below max.  Return
+   * the disposition "idle", "spawn", or "queued" if neither.
+   */
+  private String signal()
+  {
+    if (wakeIdle()) return "idle";
+    return spawn() ? "spawn" : "queued";
+  }
+
+  /**
+   * Claim and unpark one idle worker, return false if none idle.
+   */
+  private boolean wakeIdle()
+  {
+    while (true)
+    {
+      Worker w = (Worker)idle.poll();
+      if (w == null) return false;
+      if (w.idle.compareAndSet(true, false))
+      {
+        LockSupport.unpark(w);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Launch a new worker if we are below max, return false if at max.
+   */
+  private boolean spawn()
+  {
+    while (true)
+    {
+      int n = numWorkers.get();
+      if (n >= max) return false;
+      if (numWorkers.compareAndSet(n, n+1)) break;
+    }
+
+    // we have reserved a slot, so there is a free one
+    Worker w = new Worker(this, name + "-Worker-" + counter.getAndIncrement());
+    for (int i=0; i<slots.length(); ++i)
+    {
+      if (slots.compareAndSet(i, null, w)) { w.slot = i; break; }
+    }
+    w.start();
+    return true;
+  }
+
+  /**
+   * Remove worker from the pool once it has decided to die.
+   */
+  private void free(Worker w)
+  {
+    // hand off anything left on our deque
+    while (true)
+    {
+      Object work = w.deque.pollFirst();
+      if (work == null) break;
+      global.offer(work);
+    }
+
+    slots.set(w.slot, null);
+    numWorkers.decrementAndGet();
+    synchronized (this) { notifyAll(); }
+
+    // if work was submitted between our final check and the decrement
+    // above, then submit might not have seen room to spawn a worker
+    if (queued.get() > 0) signal();
+  }
+
+  /**
+   * Find the next item of work for the given worker: its own deque,
+   * then the injection queue, then steal from a peer.  Periodically
+   * check the injection queue first so it is never starved by workers
+   * which always have local work.
+   */
+  private ThreadPool.Work find(Worker w)
+  {
+    ThreadPool.Work work;
+    if ((++w.ticks & 0x1f) == 0 && (work = (ThreadPool.Work)global.poll()) != null) return work;
+    if ((work = (ThreadPool.Work)w.deque.pollFirst()) != null) return work;
+    if ((work = (ThreadPool.Work)global.poll()) != null) return work;
+
+    int n = slots.length();
+    int start = ThreadLocalRandom.current().nextInt(n);
+    for (int i=0; i<n; ++i)
+    {
+      Worker victim = (Worker)slots.get((start + i) % n);
+      if (victim == null || victim == w) continue;
+      if ((work = (ThreadPool.Work)victim.deque.pollLast()) != null) return work;
+    }
+    return null;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Debug
+//////////////////////////////////////////////////////////////////////////
+
+  public void dump(fan.sys.OutStream out)
+  {
+    out.printLine("  hasPending: " + hasPending());
+    out.printLine("  pending:    " + queued.get());
+    out.printLine("  workers:    " + numWorkers.get());
+    for (int i=0; i<slots.length(); ++i)
+    {
+      Worker w = (Worker)slots.get(i);
+      if (w != null) dumpThread(out, w.getName() + " [deque: " + w.deque.size() + "]", w.work);
+    }
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Worker
+//////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Worker is a thread which owns a deque of work.
+   */
+  static class Worker extends Thread
+  {
+    Worker(WorkStealingPool pool, String name)
+    {
+      super(name);
+      this.pool = pool;
+    }
+
+    public void run()
+    {
+      try
+      {
+        while (true)
+        {
+          // execute work until we run out
+          ThreadPool.Work work = pool.find(this);
+          if (work != null)
+          {
+            pool.queued.decrementAndGet();
+            this.work = work;
+            try { work._work(); } catch (Throwable e) { e.printStackTrace(); }
+            this.work = null;
+            continue;
+          }
+
+          // if shutting down and there is no more work, then die
+          if (pool.state != RUNNING) break;
+
+          // advertise ourselves as idle, then double check for work
+          // submitted before submit could have seen us in the idle queue
+          idle.set(true);
+          pool.idle.offer(this);
+          if (pool.queued.get() > 0 || pool.state != RUNNING)
+          {
+            unidle();
+            continue;
+          }
+
+          // park until claimed by submit or we expire our idle time
+          Thread.interrupted();
+          long deadline = System.nanoTime() + pool.idleTime;
+          while (idle.get())
+          {
+            long left = deadline - System.nanoTime();
+            if (left <= 0L) break;
+            LockSupport.parkNanos(this, left);
+          }
+
+          // if we were claimed, loop around to find work; otherwise
+          // we've expired our idle time so let this thread die
+          if (!unidle()) continue;
+          if (pool.queued.get() > 0) continue;
+          break;
+        }
+      }
+      catch (Throwable e)
+      {
+        e.printStackTrace();
+      }
+      pool.free(this);
+    }
+
+    /**
+     * Take ourselves out of the idle state; return false if
+     * submit already claimed us.
+     */
+    private boolean unidle()
+    {
+      if (!idle.compareAndSet(true, false)) return false;
+      pool.idle.remove(this);
+      return true;
+    }
+
+    final WorkStealingPool pool;
+    final ConcurrentLinkedDeque deque = new ConcurrentLinkedDeque();
+    final AtomicBoolean idle = new AtomicBoolean();
+    volatile ThreadPool.Work work;
+    int slot;
+    int ticks;
+  }
+
+//////////////////////////////////////////////////////////////////////////
+// Fields
+//////////////////////////////////////////////////////////////////////////
+
+  static final int RUNNING  = 0;
+  static final int STOPPING = 1;
+  static final int DONE     = 2;
+
+  final String name;                       // actor pool name
+  final int max;                           // maximum number of threads to use
+  final long idleTime;                     // time in ns to let threads idle (5sec)
+  private volatile int state;              // life cycle state
+  private final AtomicReferenceArray slots;                  // worker per slot for stealing
+  private final ConcurrentLinkedQueue global = new ConcurrentLinkedQueue(); // injection queue
+  private final ConcurrentLinkedQueue idle = new ConcurrentLinkedQueue();   // idle workers
+  private final AtomicInteger queued = new AtomicInteger();     // work waiting for a thread
+  private final AtomicInteger numWorkers = new AtomicInteger(); // live worker threads
+  private final AtomicInteger counter = new AtomicInteger();    // all threads ever created
+}
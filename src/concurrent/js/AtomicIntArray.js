@@ -0,0 +1,73 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+/**
+ * AtomicIntArray
+ */
+fan.concurrent.AtomicIntArray = fan.sys.Obj.$extend(fan.sys.Obj);
+
+fan.concurrent.AtomicIntArray.make = function(size, padded)
+{
+  if (size < 0) throw fan.sys.ArgErr.make("size < 0: " + size);
+  var self = new fan.concurrent.AtomicIntArray();
+  self.m_array = [];
+  for (var i=0; i<size; ++i) self.m_array.push(0);
+  return self;
+}
+
+fan.concurrent.AtomicIntArray.prototype.$ctor = function() {}
+
+fan.concurrent.AtomicIntArray.prototype.$typeof = function() { return fan.concurrent.AtomicIntArray.$type; }
+
+fan.concurrent.AtomicIntArray.prototype.size = function() { return this.m_array.length; }
+
+fan.concurrent.AtomicIntArray.prototype.get = function(index) { return this.m_array[this.$index(index)]; }
+
+fan.concurrent.AtomicIntArray.prototype.set = function(index, val) { this.m_array[this.$index(index)] = val; }
+
+fan.concurrent.AtomicIntArray.prototype.getAndSet = function(index, val)
+{
+  var i = this.$index(index);
+  var old = this.m_array[i];
+  this.m_array[i] = val;
+  return old;
+}
+
+fan.concurrent.AtomicIntArray.prototype.compareAndSet = function(index, expect, update)
+{
+  var i = this.$index(index);
+  if (this.m_array[i] != expect) return false;
+  this.m_array[i] = update;
+  return true;
+}
+
+fan.concurrent.AtomicIntArray.prototype.getAndAdd = function(index, delta)
+{
+  var i = this.$index(index);
+  var old = this.m_array[i];
+  this.m_array[i] = old + delta;
+  return old;
+}
+
+fan.concurrent.AtomicIntArray.prototype.addAndGet = function(index, delta) { return this.getAndAdd(index, delta) + delta; }
+
+fan.concurrent.AtomicIntArray.prototype.increment = function(index) { this.getAndAdd(index, 1); }
+
+fan.concurrent.AtomicIntArray.prototype.decrement = function(index) { this.getAndAdd(index, -1); }
+
+fan.concurrent.AtomicIntArray.prototype.add = function(index, delta) { this.getAndAdd(index, delta); }
+
+fan.concurrent.AtomicIntArray.prototype.toList = function() { return fan.sys.List.make(fan.sys.Int.$type, this.m_array.slice()); }
+
+fan.concurrent.AtomicIntArray.prototype.toStr = function() { return this.toList().toStr(); }
+
+fan.concurrent.AtomicIntArray.prototype.$index = function(index)
+{
+  if (index < 0 || index >= this.m_array.length) throw fan.sys.IndexErr.make(index);
+  return index;
+}
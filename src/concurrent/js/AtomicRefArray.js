@@ -0,0 +1,70 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+/**
+ * AtomicRefArray
+ */
+fan.concurrent.AtomicRefArray = fan.sys.Obj.$extend(fan.sys.Obj);
+
+fan.concurrent.AtomicRefArray.make = function(size)
+{
+  if (size < 0) throw fan.sys.ArgErr.make("size < 0: " + size);
+  var self = new fan.concurrent.AtomicRefArray();
+  self.m_array = [];
+  for (var i=0; i<size; ++i) self.m_array.push(null);
+  return self;
+}
+
+fan.concurrent.AtomicRefArray.prototype.$ctor = function() {}
+
+fan.concurrent.AtomicRefArray.prototype.$typeof = function() { return fan.concurrent.AtomicRefArray.$type; }
+
+fan.concurrent.AtomicRefArray.prototype.size = function() { return this.m_array.length; }
+
+fan.concurrent.AtomicRefArray.prototype.get = function(index) { return this.m_array[this.$index(index)]; }
+
+fan.concurrent.AtomicRefArray.prototype.set = function(index, val)
+{
+  this.m_array[this.$index(index)] = this.$checkImmutable(val);
+}
+
+fan.concurrent.AtomicRefArray.prototype.getAndSet = function(index, val)
+{
+  var i = this.$index(index);
+  var old = this.m_array[i];
+  this.m_array[i] = this.$checkImmutable(val);
+  return old;
+}
+
+fan.concurrent.AtomicRefArray.prototype.compareAndSet = function(index, expect, update)
+{
+  var i = this.$index(index);
+  this.$checkImmutable(update);
+  if (this.m_array[i] !== expect) return false;
+  this.m_array[i] = update;
+  return true;
+}
+
+fan.concurrent.AtomicRefArray.prototype.toList = function()
+{
+  return fan.sys.List.make(fan.sys.Obj.$type.toNullable(), this.m_array.slice());
+}
+
+fan.concurrent.AtomicRefArray.prototype.toStr = function() { return this.toList().toStr(); }
+
+fan.concurrent.AtomicRefArray.prototype.$index = function(index)
+{
+  if (index < 0 || index >= this.m_array.length) throw fan.sys.IndexErr.make(index);
+  return index;
+}
+
+fan.concurrent.AtomicRefArray.prototype.$checkImmutable = function(val)
+{
+  if (val == null || fan.sys.ObjUtil.isImmutable(val)) return val;
+  else throw fan.sys.NotImmutableErr.make();
+}
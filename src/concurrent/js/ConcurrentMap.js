@@ -85,6 +85,54 @@ fan.concurrent.ConcurrentMap.prototype.each = function(f) { this.m_map.each(f);
 
 fan.concurrent.ConcurrentMap.prototype.eachWhile = function(f) { return this.m_map.eachWhile(f); }
 
+fan.concurrent.ConcurrentMap.prototype.compute = function(key, f)
+{
+  var val = f.call(key, this.m_map.get(key));
+  if (val == null) this.m_map.remove(key);
+  else this.m_map.set(key, this.$checkImmutable(val));
+  return val;
+}
+
+fan.concurrent.ConcurrentMap.prototype.computeIfAbsent = function(key, f)
+{
+  var val = this.m_map.get(key);
+  if (val != null) return val;
+  val = f.call(key);
+  if (val != null) this.m_map.set(key, this.$checkImmutable(val));
+  return val;
+}
+
+fan.concurrent.ConcurrentMap.prototype.merge = function(key, val, f)
+{
+  var old = this.m_map.get(key);
+  if (old == null) { this.m_map.set(key, this.$checkImmutable(val)); return val; }
+  var merged = f.call(old, val);
+  if (merged == null) this.m_map.remove(key);
+  else this.m_map.set(key, this.$checkImmutable(merged));
+  return merged;
+}
+
+fan.concurrent.ConcurrentMap.prototype.removeIf = function(f)
+{
+  var keys = [];
+  this.m_map.$each(function(b) { if (f.call(b.val, b.key)) keys.push(b.key); });
+  for (var i=0; i<keys.length; ++i) this.m_map.remove(keys[i]);
+  return keys.length;
+}
+
+fan.concurrent.ConcurrentMap.prototype.eachParallel = function(threshold, f) { this.m_map.each(f); }
+
+fan.concurrent.ConcurrentMap.prototype.reduce = function(threshold, transform, reducer)
+{
+  var acc = null;
+  this.m_map.$each(function(b)
+  {
+    var x = transform.call(b.val, b.key);
+    if (x != null) acc = acc == null ? x : reducer.call(acc, x);
+  });
+  return acc;
+}
+
 fan.concurrent.ConcurrentMap.prototype.containsKey = function(key) { return this.m_map.containsKey(key); }
 
 fan.concurrent.ConcurrentMap.prototype.keys = function(of)
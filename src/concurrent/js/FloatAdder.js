@@ -0,0 +1,33 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+/**
+ * FloatAdder
+ */
+fan.concurrent.FloatAdder = fan.sys.Obj.$extend(fan.sys.Obj);
+
+fan.concurrent.FloatAdder.make = function() { return new fan.concurrent.FloatAdder(); }
+
+fan.concurrent.FloatAdder.prototype.$ctor = function() { this.m_sum = fan.sys.Float.make(0); }
+
+fan.concurrent.FloatAdder.prototype.$typeof = function() { return fan.concurrent.FloatAdder.$type; }
+
+fan.concurrent.FloatAdder.prototype.add = function(delta) { this.m_sum = fan.sys.Float.make(this.m_sum + delta); }
+
+fan.concurrent.FloatAdder.prototype.sum = function() { return this.m_sum; }
+
+fan.concurrent.FloatAdder.prototype.reset = function() { this.m_sum = fan.sys.Float.make(0); }
+
+fan.concurrent.FloatAdder.prototype.sumThenReset = function()
+{
+  var sum = this.m_sum;
+  this.reset();
+  return sum;
+}
+
+fan.concurrent.FloatAdder.prototype.toStr = function() { return fan.sys.Float.toStr(this.m_sum); }
@@ -0,0 +1,37 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+/**
+ * IntAdder
+ */
+fan.concurrent.IntAdder = fan.sys.Obj.$extend(fan.sys.Obj);
+
+fan.concurrent.IntAdder.make = function() { return new fan.concurrent.IntAdder(); }
+
+fan.concurrent.IntAdder.prototype.$ctor = function() { this.m_sum = 0; }
+
+fan.concurrent.IntAdder.prototype.$typeof = function() { return fan.concurrent.IntAdder.$type; }
+
+fan.concurrent.IntAdder.prototype.increment = function() { this.m_sum++; }
+
+fan.concurrent.IntAdder.prototype.decrement = function() { this.m_sum--; }
+
+fan.concurrent.IntAdder.prototype.add = function(delta) { this.m_sum += delta; }
+
+fan.concurrent.IntAdder.prototype.sum = function() { return this.m_sum; }
+
+fan.concurrent.IntAdder.prototype.reset = function() { this.m_sum = 0; }
+
+fan.concurrent.IntAdder.prototype.sumThenReset = function()
+{
+  var sum = this.m_sum;
+  this.m_sum = 0;
+  return sum;
+}
+
+fan.concurrent.IntAdder.prototype.toStr = function() { return "" + this.m_sum; }
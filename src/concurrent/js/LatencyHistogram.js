@@ -0,0 +1,127 @@
+//
+// Copyright (c) 2026, Brian Frank and Andy Frank
+// Licensed under the Academic Free License version 3.0
+//
+// History:
+//   18 Oct 26  agent  Creation
+//
+
+/**
+ * LatencyHistogram
+ */
+fan.concurrent.LatencyHistogram = fan.sys.Obj.$extend(fan.sys.Obj);
+
+fan.concurrent.LatencyHistogram.SUB = 32;
+fan.concurrent.LatencyHistogram.MAX_MAG = 43;
+fan.concurrent.LatencyHistogram.BUCKETS = (43 - 5 + 2) * 32;
+
+fan.concurrent.LatencyHistogram.make = function() { return new fan.concurrent.LatencyHistogram(); }
+
+fan.concurrent.LatencyHistogram.prototype.$ctor = function() { this.reset(); }
+
+fan.concurrent.LatencyHistogram.prototype.$typeof = function() { return fan.concurrent.LatencyHistogram.$type; }
+
+//////////////////////////////////////////////////////////////////////////
+// Recording
+//////////////////////////////////////////////////////////////////////////
+
+fan.concurrent.LatencyHistogram.prototype.record = function(d)
+{
+  var ticks = Math.max(0, d.ticks());
+  this.m_counts[fan.concurrent.LatencyHistogram.$index(ticks)]++;
+  this.m_count++;
+  this.m_sum += ticks;
+  if (ticks > this.m_max) this.m_max = ticks;
+  if (ticks < this.m_min) this.m_min = ticks;
+}
+
+fan.concurrent.LatencyHistogram.prototype.reset = function()
+{
+  this.m_counts = [];
+  for (var i=0; i<fan.concurrent.LatencyHistogram.BUCKETS; ++i) this.m_counts.push(0);
+  this.m_count = 0;
+  this.m_sum = 0;
+  this.m_min = Number.MAX_VALUE;
+  this.m_max = 0;
+}
+
+//////////////////////////////////////////////////////////////////////////
+// Access
+//////////////////////////////////////////////////////////////////////////
+
+fan.concurrent.LatencyHistogram.prototype.count = function() { return this.m_count; }
+
+fan.concurrent.LatencyHistogram.prototype.min = function()
+{
+  return this.m_count == 0 ? null : fan.sys.Duration.make(this.m_min);
+}
+
+fan.concurrent.LatencyHistogram.prototype.max = function()
+{
+  return this.m_count == 0 ? null : fan.sys.Duration.make(this.m_max);
+}
+
+fan.concurrent.LatencyHistogram.prototype.mean = function()
+{
+  return this.m_count == 0 ? null : fan.sys.Duration.make(Math.floor(this.m_sum / this.m_count));
+}
+
+fan.concurrent.LatencyHistogram.prototype.percentile = function(percent)
+{
+  if (!(percent >= 0 && percent <= 100)) throw fan.sys.ArgErr.make("percent must be 0 to 100: " + percent);
+  var ticks = this.$ticksAt(percent);
+  return ticks < 0 ? null : fan.sys.Duration.make(ticks);
+}
+
+fan.concurrent.LatencyHistogram.prototype.$ticksAt = function(percent)
+{
+  if (this.m_count == 0) return -1;
+  var rank = Math.max(1, Math.ceil(percent / 100 * this.m_count));
+  var acc = 0;
+
+  // the last bucket holds every value past 2^43 ticks so its upper
+  // bound is meaningless; any rank beyond the others is at most max
+  for (var i=0; i<this.m_counts.length-1; ++i)
+  {
+    acc += this.m_counts[i];
+    if (acc >= rank) return Math.max(Math.min(fan.concurrent.LatencyHistogram.$upper(i), this.m_max), this.m_min);
+  }
+  return this.m_max;
+}
+
+fan.concurrent.LatencyHistogram.prototype.toStr = function()
+{
+  if (this.m_count == 0) return "count=0";
+  var loc = function(ticks) { return fan.sys.Duration.make(ticks).toLocale(); }
+  return "count=" + this.m_count +
+         " mean=" + this.mean().toLocale() +
+         " p50=" + loc(this.$ticksAt(50)) +
+         " p90=" + loc(this.$ticksAt(90)) +
+         " p99=" + loc(this.$ticksAt(99)) +
+         " p999=" + loc(this.$ticksAt(99.9)) +
+         " max=" + loc(this.m_max);
+}
+
+//////////////////////////////////////////////////////////////////////////
+// Buckets
+//////////////////////////////////////////////////////////////////////////
+
+fan.concurrent.LatencyHistogram.$index = function(ticks)
+{
+  var SUB = fan.concurrent.LatencyHistogram.SUB;
+  if (ticks < SUB) return ticks;
+  var mag = Math.floor(Math.log(ticks) / Math.LN2);
+  if (Math.pow(2, mag) > ticks) mag--;
+  else if (Math.pow(2, mag+1) <= ticks) mag++;
+  if (mag > fan.concurrent.LatencyHistogram.MAX_MAG) return fan.concurrent.LatencyHistogram.BUCKETS - 1;
+  return (mag - 4) * SUB + (Math.floor(ticks / Math.pow(2, mag - 5)) - SUB);
+}
+
+fan.concurrent.LatencyHistogram.$upper = function(index)
+{
+  var SUB = fan.concurrent.LatencyHistogram.SUB;
+  if (index < SUB) return index;
+  var mag = Math.floor(index / SUB) + 4;
+  var step = Math.pow(2, mag - 5);
+  return (SUB + index % SUB) * step + step - 1;
+}
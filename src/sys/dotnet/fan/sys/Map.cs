@@ -119,7 +119,7 @@ namespace Fan.Sys
         throw NullErr.make("key is null").val;
       if (!isImmutable(key))
         throw NotImmutableErr.make("key is not immutable: " + @typeof(key)).val;
-      m_map[key] = val;
+      put(key, val);
       return this;
     }
 
@@ -152,7 +152,7 @@ namespace Fan.Sys
       {
         object key = en.Key;
         object val = en.Value;
-        m_map[key] = val;
+        put(key, val);
       }
       return this;
     }
@@ -226,6 +226,7 @@ namespace Fan.Sys
     {
       Map dup = new Map(m_type);
       dup.m_map = cloneMap(this.m_map);
+      dup.m_caseInsensitive = m_caseInsensitive;
       return dup;
     }
 
@@ -247,16 +248,9 @@ namespace Fan.Sys
       if (m_map.Count != 0)
         throw UnsupportedErr.make("Map not empty").val;
 
-      if (v && ordered())
-        throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered").val;
-
       if (this.m_caseInsensitive == v) return;
       this.m_caseInsensitive = v;
-
-      if (m_caseInsensitive)
-        m_map = new Hashtable(new CIEqualityComparer());
-      else
-        m_map = new Hashtable();
+      m_map = makeMap(ordered(), v);
     }
 
     public bool ordered()
@@ -271,15 +265,8 @@ namespace Fan.Sys
       if (m_map.Count != 0)
         throw UnsupportedErr.make("Map not empty").val;
 
-      if (v && caseInsensitive())
-        throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered").val;
-
       if (ordered() == v) return;
-
-      if (v)
-        m_map = new OrderedDictionary();
-      else
-        m_map = new Hashtable();
+      m_map = makeMap(v, m_caseInsensitive);
     }
 
     public object def() { return m_def; }
@@ -593,10 +580,7 @@ namespace Fan.Sys
       if (m_immutable) return this;
 
       // make safe copy
-      IDictionary temp;
-      if (caseInsensitive()) temp = new Hashtable(new CIEqualityComparer());
-      else if (ordered()) temp = new OrderedDictionary();
-      else temp = new Hashtable();
+      IDictionary temp = makeMap(ordered(), caseInsensitive());
 
       IDictionaryEnumerator en = m_map.GetEnumerator();
       while (en.MoveNext())
@@ -660,7 +644,7 @@ namespace Fan.Sys
       if (dict is Hashtable) return (IDictionary)((Hashtable)dict).Clone();
       if (dict is OrderedDictionary)
       {
-        OrderedDictionary dup = new OrderedDictionary();
+        IDictionary dup = makeMap(true, m_caseInsensitive);
         IDictionaryEnumerator en = dict.GetEnumerator();
         while (en.MoveNext()) dup[en.Key] = en.Value;
         return dup;
@@ -668,6 +652,30 @@ namespace Fan.Sys
       throw new Exception(dict.ToString());
     }
 
+    internal static IDictionary makeMap(bool ordered, bool caseInsensitive)
+    {
+      if (ordered)
+        return caseInsensitive ? new OrderedDictionary(new CIEqualityComparer()) : new OrderedDictionary();
+      else
+        return caseInsensitive ? new Hashtable(new CIEqualityComparer()) : new Hashtable();
+    }
+
+    private void put(object key, object val)
+    {
+      // OrderedDictionary replaces the stored key when an existing key is
+      // set, so for caseInsensitive maps set by index to keep the original
+      // key the way Hashtable does
+      if (m_caseInsensitive && m_map is OrderedDictionary && m_map.Contains(key))
+      {
+        int i = 0;
+        IDictionaryEnumerator en = m_map.GetEnumerator();
+        while (en.MoveNext() && !FanStr.equalsIgnoreCase((string)en.Key, (string)key)) ++i;
+        ((OrderedDictionary)m_map)[i] = val;
+        return;
+      }
+      m_map[key] = val;
+    }
+
   //////////////////////////////////////////////////////////////////////////
   // CIEqualityComparer (Case Insensitive)
   //////////////////////////////////////////////////////////////////////////
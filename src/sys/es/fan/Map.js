@@ -255,9 +255,6 @@ class Map extends Obj {
     if (this.#size != 0)
       throw UnsupportedErr.make("Map not empty");
 
-    if (it && this.ordered())
-      throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
     this.#caseInsensitive = it;
   }
 
@@ -268,9 +265,6 @@ class Map extends Obj {
     if (this.#size != 0)
       throw UnsupportedErr.make("Map not empty");
 
-    if (it && this.caseInsensitive())
-      throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
     this.#ordered = it;
     this.#keys = [];
   }
@@ -51,6 +51,7 @@ public final class List
     this.of = of;
     this.values = values;
     this.size = values.length;
+    unbox();
   }
 
   public List(Type of, Object[] values, int size)
@@ -59,20 +60,21 @@ public final class List
     this.of = of;
     this.values = values;
     this.size = size;
+    unbox();
   }
 
   public List(Type of, int capacity)
   {
     if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
     this.of = of;
-    this.values = capacity == 0 ? empty : newArray(capacity);
+    if (of == Sys.IntType) this.longs = capacity == 0 ? emptyLongs : new long[capacity];
+    else if (of == Sys.FloatType) this.doubles = capacity == 0 ? emptyDoubles : new double[capacity];
+    else this.values = capacity == 0 ? empty : newArray(capacity);
   }
 
   public List(Type of)
   {
-    if (of == null) { Thread.dumpStack(); throw NullErr.make(); }
-    this.of = of;
-    this.values = empty;
+    this(of, 0);
   }
 
   public List(Type of, Collection collection)
@@ -81,6 +83,7 @@ public final class List
     this.of = of;
     this.size = collection.size();
     this.values = collection.toArray(newArray(size));
+    unbox();
   }
 
   public List(String[] values)
@@ -140,14 +143,15 @@ public final class List
     else
     {
       // null out removed items for GC
-      for (int i=newSize; i<size; ++i) values[i] = null;
+      if (values != null)
+        for (int i=newSize; i<size; ++i) values[i] = null;
       size = newSize;
     }
   }
 
   public final long capacity()
   {
-    return values.length;
+    return length();
   }
 
   public final void capacity(long c)
@@ -155,9 +159,7 @@ public final class List
     modify();
     int newCapacity = (int)c;
     if (newCapacity < size) throw ArgErr.make("capacity < size");
-    Object[] temp = newArray(newCapacity);
-    System.arraycopy(values, 0, temp, 0, size);
-    values = temp;
+    resize(newCapacity);
   }
 
   public final Object get(long index)
@@ -167,7 +169,7 @@ public final class List
       int i = (int)index;
       if (i < 0) i = size + i;
       if (i >= size) throw IndexErr.make(index);
-      return values[i];
+      return at(i);
     }
     catch (ArrayIndexOutOfBoundsException e)
     {
@@ -180,7 +182,7 @@ public final class List
   {
     if (index < 0) index = size + index;
     if (index >= size || index < 0) return def;
-    return values[(int)index];
+    return at((int)index);
   }
 
   public final List getRange(Range r)
@@ -191,13 +193,14 @@ public final class List
     if (n < 0) throw IndexErr.make(r);
 
     List acc = new List(of, n);
+    copy(this, s, acc, 0, n);
     acc.size = n;
-    System.arraycopy(values, s, acc.values, 0, n);
     return acc;
   }
 
   public final boolean contains(Object value)
   {
+    if (values == null) return indexOf(value, 0, size, 1) >= 0;
     if (value == null) return containsSame(value);
     for (int i=0; i<size; ++i)
     {
@@ -210,6 +213,7 @@ public final class List
 
   public final boolean containsSame(Object value)
   {
+    if (values == null) return indexOf(value, 0, size, 1) >= 0;
     for (int i=0; i<size; ++i)
       if (values[i] == value) return true;
     return false;
@@ -241,6 +245,12 @@ public final class List
 
     try
     {
+      if (values == null)
+      {
+        if (start < 0) throw new ArrayIndexOutOfBoundsException(start);
+        int i = indexOf(value, start, size, 1);
+        return i < 0 ? null : Long.valueOf(i);
+      }
       if (value == null)
       {
         for (int i=start; i<size; ++i)
@@ -274,6 +284,11 @@ public final class List
 
     try
     {
+      if (values == null)
+      {
+        int i = indexOf(value, start, -1, -1);
+        return i < 0 ? null : Long.valueOf(i);
+      }
       if (value == null)
       {
         for (int i=start; i>=0; --i)
@@ -307,6 +322,12 @@ public final class List
 
     try
     {
+      if (values == null)
+      {
+        if (start < 0) throw new ArrayIndexOutOfBoundsException(start);
+        int i = indexOf(value, start, size, 1);
+        return i < 0 ? null : Long.valueOf(i);
+      }
       for (int i=start; i<size; ++i)
         if (value == values[i])
           return Long.valueOf(i);
@@ -321,25 +342,36 @@ public final class List
   public final Object first()
   {
     if (size == 0) return null;
-    return values[0];
+    return at(0);
   }
 
   public final Object last()
   {
     if (size == 0) return null;
-    return values[size-1];
+    return at(size-1);
   }
 
   public final List dup()
   {
-    Object[] dup = newArray(size);
-    System.arraycopy(values, 0, dup, 0, size);
-    return new List(of, dup);
+    List dup = new List(of);
+    dup.setStore(copyOf(size));
+    dup.size = size;
+    return dup;
   }
 
   public final long hash()
   {
     long hash = 33;
+    if (longs != null)
+    {
+      for (int i=0; i<size; ++i) hash = (31*hash) + Long.hashCode(longs[i]);
+      return hash;
+    }
+    if (doubles != null)
+    {
+      for (int i=0; i<size; ++i) hash = (31*hash) + Double.hashCode(doubles[i]);
+      return hash;
+    }
     for (int i=0; i<size; ++i)
     {
       Object obj = values[i];
@@ -355,8 +387,20 @@ public final class List
       List x = (List)that;
       if (!of.equals(x.of)) return false;
       if (size != x.size) return false;
+      if (longs != null && x.longs != null)
+      {
+        for (int i=0; i<size; ++i)
+          if (longs[i] != x.longs[i]) return false;
+        return true;
+      }
+      if (doubles != null && x.doubles != null)
+      {
+        for (int i=0; i<size; ++i)
+          if (Double.doubleToLongBits(doubles[i]) != Double.doubleToLongBits(x.doubles[i])) return false;
+        return true;
+      }
       for (int i=0; i<size; ++i)
-        if (!OpUtil.compareEQ(values[i], x.values[i])) return false;
+        if (!OpUtil.compareEQ(at(i), x.at(i))) return false;
       return true;
     }
     return false;
@@ -374,7 +418,8 @@ public final class List
       int i = (int)index;
       if (i < 0) i = size + i;
       if (i >= size) throw IndexErr.make(index);
-      values[i] = value;
+      fit(value);
+      put(i, value);
       return this;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -422,11 +467,12 @@ public final class List
     try
     {
       modify();
-      if (values.length <= size)
+      if (length() <= size)
         grow(size+1);
+      fit(value);
       if (i < size)
-        System.arraycopy(values, i, values, i+1, size-i);
-      values[i] = value;
+        System.arraycopy(store(), i, store(), i+1, size-i);
+      put(i, value);
       size++;
       return this;
     }
@@ -449,11 +495,11 @@ public final class List
   {
     modify();
     if (list.size == 0) return this;
-    if (values.length < size+list.size)
+    if (length() < size+list.size)
       grow(size+list.size);
     if (i < size)
-      System.arraycopy(values, i, values, i+list.size, size-i);
-    System.arraycopy(list.values, 0, values, i, list.size);
+      System.arraycopy(store(), i, store(), i+list.size, size-i);
+    copy(list, 0, this, i, list.size);
     size+=list.size;
     return this;
   }
@@ -480,9 +526,9 @@ public final class List
     int i = (int)index;
     if (i < 0) i = size + i;
     if (i >= size) throw IndexErr.make(index);
-    Object old = values[i];
+    Object old = at(i);
     if (i < size-1)
-      System.arraycopy(values, i+1, values, i, size-i-1);
+      System.arraycopy(store(), i+1, store(), i, size-i-1);
     size--;
     return old;
   }
@@ -496,9 +542,10 @@ public final class List
     if (n < 0) throw IndexErr.make(r);
 
     int shift = size-s-n;
-    if (shift > 0) System.arraycopy(values, s+n, values, s, shift);
+    if (shift > 0) System.arraycopy(store(), s+n, store(), s, shift);
     size -= n;
-    for (int i=size; i<size+n; ++i) values[i] = null;
+    if (values != null)
+      for (int i=size; i<size+n; ++i) values[i] = null;
     return this;
   }
 
@@ -509,16 +556,17 @@ public final class List
     if (toRemove.sz() == 0) { return this; }
     if (toRemove.sz() == 1) { remove(toRemove.get(0)); return this; }
 
-    // rebuild the backing store array, implementation
+    // compact the backing store in place, implementation
     // assumes that this list is bigger than toRemove list
-    Object[] newValues = newArray(values.length);
     int newSize = 0;
     for (int i=0; i<size; ++i)
     {
-      Object val = values[i];
-      if (!toRemove.contains(val)) newValues[newSize++] = val;
+      if (toRemove.contains(at(i))) continue;
+      if (newSize != i) move(i, newSize);
+      newSize++;
     }
-    this.values = newValues;
+    if (values != null)
+      for (int i=newSize; i<size; ++i) values[i] = null;
     this.size = newSize;
     return this;
   }
@@ -529,32 +577,22 @@ public final class List
     if (desired < 1) throw Err.make("desired " + desired + " < 1");
     int newSize = Math.max(desired, size*2);
     if (newSize < 10) newSize = 10;
-    Object[] temp = newArray(newSize);
-    System.arraycopy(values, 0, temp, 0, size);
-    values = temp;
+    resize(newSize);
   }
 
   public final List trim()
   {
     modify();
-    if (size == 0)
-    {
-      values = empty;
-    }
-    else if (values.length != size)
-    {
-      Object[] temp = newArray(size);
-      System.arraycopy(values, 0, temp, 0, size);
-      values = temp;
-    }
+    if (length() != size) resize(size);
     return this;
   }
 
   public final List clear()
   {
     modify();
-    for (int i=0; i<size; ++i)
-      values[i] = null;
+    if (values != null)
+      for (int i=0; i<size; ++i)
+        values[i] = null;
     size = 0;
     return this;
   }
@@ -563,8 +601,9 @@ public final class List
   {
     modify();
     int t = (int)times;
-    if (values.length < size+t) grow(size+t);
-    for (int i=0; i<t; ++i) values[size+i] = val;
+    if (length() < size+t) grow(size+t);
+    fit(val);
+    for (int i=0; i<t; ++i) put(size+i, val);
     size += t;
     return this;
   }
@@ -576,7 +615,7 @@ public final class List
   public final Object peek()
   {
     if (size == 0) return null;
-    return values[size-1];
+    return at(size-1);
   }
 
   public final Object pop()
@@ -601,12 +640,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        f.call(values[i]);
+        f.call(at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
@@ -615,12 +654,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=size-1; i>=0; --i)
-        f.call(values[i]);
+        f.call(at(i));
     }
     else
     {
       for (int i=size-1; i>=0; --i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
@@ -630,7 +669,7 @@ public final class List
     {
       for (int i=0; i<size; ++i)
       {
-        Object value = values[i];
+        Object value = at(i);
         if (value != null) f.call(value);
       }
     }
@@ -638,7 +677,7 @@ public final class List
     {
       for (int i=0; i<size; ++i)
       {
-        Object value = values[i];
+        Object value = at(i);
         if (value != null) f.call(value, Long.valueOf(i));
       }
     }
@@ -654,12 +693,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=s; i<=e; ++i)
-        f.call(values[i]);
+        f.call(at(i));
     }
     else
     {
       for (int i=s; i<=e; ++i)
-        f.call(values[i], Long.valueOf(i));
+        f.call(at(i), Long.valueOf(i));
     }
   }
 
@@ -669,7 +708,7 @@ public final class List
     {
       for (int i=0; i<size; ++i)
       {
-        Object r = f.call(values[i]);
+        Object r = f.call(at(i));
         if (r != null) return r;
       }
     }
@@ -677,7 +716,7 @@ public final class List
     {
       for (int i=0; i<size; ++i)
       {
-        Object r = f.call(values[i], Long.valueOf(i));
+        Object r = f.call(at(i), Long.valueOf(i));
         if (r != null) return r;
       }
     }
@@ -690,7 +729,7 @@ public final class List
     {
       for (int i=size-1; i>=0; --i)
       {
-        Object r = f.call(values[i]);
+        Object r = f.call(at(i));
         if (r != null) return r;
       }
     }
@@ -698,7 +737,7 @@ public final class List
     {
       for (int i=size-1; i>=0; --i)
       {
-        Object r = f.call(values[i], Long.valueOf(i));
+        Object r = f.call(at(i), Long.valueOf(i));
         if (r != null) return r;
       }
     }
@@ -710,14 +749,20 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
-          return values[i];
+      {
+        Object v = at(i);
+        if (f.callBool(v))
+          return v;
+      }
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
-          return values[i];
+      {
+        Object v = at(i);
+        if (f.callBool(v, Long.valueOf(i)))
+          return v;
+      }
     }
     return null;
   }
@@ -728,7 +773,7 @@ public final class List
     {
       for (int i=0; i<size; ++i)
       {
-        if (f.callBool(values[i]))
+        if (f.callBool(at(i)))
           return Long.valueOf(i);
       }
     }
@@ -737,7 +782,7 @@ public final class List
       for (int i=0; i<size; ++i)
       {
         Long pos = Long.valueOf(i);
-        if (f.callBool(values[i], pos))
+        if (f.callBool(at(i), pos))
           return pos;
       }
     }
@@ -750,14 +795,20 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
-          acc.add(values[i]);
+      {
+        Object v = at(i);
+        if (f.callBool(v))
+          acc.add(v);
+      }
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
-          acc.add(values[i]);
+      {
+        Object v = at(i);
+        if (f.callBool(v, Long.valueOf(i)))
+          acc.add(v);
+      }
     }
     return acc;
   }
@@ -767,7 +818,7 @@ public final class List
     List acc = new List(t, size);
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item != null && typeof(item).is(t))
         acc.add(item);
     }
@@ -779,7 +830,7 @@ public final class List
     List acc = new List(of.toNonNullable(), size);
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item != null)
         acc.add(item);
     }
@@ -792,14 +843,20 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i]))
-          acc.add(values[i]);
+      {
+        Object v = at(i);
+        if (!f.callBool(v))
+          acc.add(v);
+      }
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i], Long.valueOf(i)))
-          acc.add(values[i]);
+      {
+        Object v = at(i);
+        if (!f.callBool(v, Long.valueOf(i)))
+          acc.add(v);
+      }
     }
     return acc;
   }
@@ -809,13 +866,13 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i]))
+        if (f.callBool(at(i)))
           return true;
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (f.callBool(values[i], Long.valueOf(i)))
+        if (f.callBool(at(i), Long.valueOf(i)))
           return true;
     }
     return false;
@@ -826,13 +883,13 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i]))
+        if (!f.callBool(at(i)))
           return false;
     }
     else
     {
       for (int i=0; i<size; ++i)
-        if (!f.callBool(values[i], Long.valueOf(i)))
+        if (!f.callBool(at(i), Long.valueOf(i)))
           return false;
     }
     return true;
@@ -843,12 +900,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        reduction = f.call(reduction, values[i]);
+        reduction = f.call(reduction, at(i));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        reduction = f.call(reduction, values[i], Long.valueOf(i));
+        reduction = f.call(reduction, at(i), Long.valueOf(i));
     }
     return reduction;
   }
@@ -861,12 +918,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.add(f.call(values[i]));
+        acc.add(f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.add(f.call(values[i], Long.valueOf(i)));
+        acc.add(f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -879,12 +936,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.addNotNull(f.call(values[i]));
+        acc.addNotNull(f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.addNotNull(f.call(values[i], Long.valueOf(i)));
+        acc.addNotNull(f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -898,12 +955,12 @@ public final class List
     if (f.arity() == 1)
     {
       for (int i=0; i<size; ++i)
-        acc.addAll((List)f.call(values[i]));
+        acc.addAll((List)f.call(at(i)));
     }
     else
     {
       for (int i=0; i<size; ++i)
-        acc.addAll((List)f.call(values[i], Long.valueOf(i)));
+        acc.addAll((List)f.call(at(i), Long.valueOf(i)));
     }
     return acc;
   }
@@ -924,7 +981,7 @@ public final class List
     boolean arity1 = f.arity() == 1;
     for (int i=0; i<size; ++i)
     {
-      Object val = values[i];
+      Object val = at(i);
       Object key = arity1 ? f.call(val) : f.call(val, Long.valueOf(i));
       List bucket = (List)acc.get(key);
       if (bucket == null)
@@ -941,11 +998,28 @@ public final class List
   public final Object max(Func f)
   {
     if (size == 0) return null;
+    if (f == null && longs != null)
+    {
+      long max = longs[0];
+      for (int i=1; i<size; ++i)
+        if (longs[i] > max) max = longs[i];
+      return Long.valueOf(max);
+    }
+    if (f == null && doubles != null)
+    {
+      double max = doubles[0];
+      for (int i=1; i<size; ++i)
+        if (FanFloat.compare(doubles[i], max) > 0) max = doubles[i];
+      return Double.valueOf(max);
+    }
     Comparator c = toComparator(f);
-    Object max = values[0];
+    Object max = at(0);
     for (int i=1; i<size; ++i)
-      if (c.compare(values[i], max) > 0)
-        max = values[i];
+    {
+      Object v = at(i);
+      if (c.compare(v, max) > 0)
+        max = v;
+    }
     return max;
   }
 
@@ -953,11 +1027,28 @@ public final class List
   public final Object min(Func f)
   {
     if (size == 0) return null;
+    if (f == null && longs != null)
+    {
+      long min = longs[0];
+      for (int i=1; i<size; ++i)
+        if (longs[i] < min) min = longs[i];
+      return Long.valueOf(min);
+    }
+    if (f == null && doubles != null)
+    {
+      double min = doubles[0];
+      for (int i=1; i<size; ++i)
+        if (FanFloat.compare(doubles[i], min) < 0) min = doubles[i];
+      return Double.valueOf(min);
+    }
     Comparator c = toComparator(f);
-    Object min = values[0];
+    Object min = at(0);
     for (int i=1; i<size; ++i)
-      if (c.compare(values[i], min) < 0)
-        min = values[i];
+    {
+      Object v = at(i);
+      if (c.compare(v, min) < 0)
+        min = v;
+    }
     return min;
   }
 
@@ -968,7 +1059,7 @@ public final class List
     List acc = new List(of, size);
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -987,7 +1078,7 @@ public final class List
     // first me
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -998,7 +1089,7 @@ public final class List
     // then him
     for (int i=0; i<that.size; ++i)
     {
-      Object v = that.values[i];
+      Object v = that.at(i);
       if (dups.get(v) == null)
       {
         dups.put(v, this);
@@ -1014,14 +1105,14 @@ public final class List
     // put other list into map
     HashMap dups = new HashMap(that.size*3);
     for (int i=0; i<that.size; ++i)
-      dups.put(that.values[i], this);
+      dups.put(that.at(i), this);
 
     // now walk this list and accumulate
     // everything found in the dups map
     List acc = new List(of, size);
     for (int i=0; i<size; ++i)
     {
-      Object v = values[i];
+      Object v = at(i);
       if (dups.get(v) != null)
       {
         acc.add(v);
@@ -1039,7 +1130,14 @@ public final class List
   public final List sort(final Func f)
   {
     modify();
-    Arrays.sort(values, 0, size, toComparator(f));
+    if (f == null && longs != null) { Arrays.sort(longs, 0, size); return this; }
+    if (f == null && doubles != null)
+    {
+      if (isPlainDoubles()) Arrays.sort(doubles, 0, size);
+      else sortBoxed(floatComparator);
+      return this;
+    }
+    sortBoxed(toComparator(f));
     return this;
   }
 
@@ -1047,20 +1145,83 @@ public final class List
   public final List sortr(final Func f)
   {
     modify();
-    Arrays.sort(values, 0, size, toReverseComparator(f));
+    if (f == null && doubles != null && !isPlainDoubles()) { sortBoxed(floatReverseComparator); return this; }
+    if (f == null && values == null) { sort(null); return reverse(); }
+    sortBoxed(toReverseComparator(f));
     return this;
   }
 
+  private void sortBoxed(Comparator c)
+  {
+    if (values != null) { Arrays.sort(values, 0, size, c); return; }
+
+    // sort boxed copy of primitive store then copy back
+    Object[] temp = toArray(new Object[size]);
+    Arrays.sort(temp, c);
+    for (int i=0; i<size; ++i) put(i, temp[i]);
+  }
+
+  // Arrays.sort on a double[] puts NaN last and -0.0 before 0.0, but
+  // Float.compare puts NaN first and treats -0.0 and 0.0 as equal; so
+  // only use it when the store has neither, else sort stably boxed
+  private boolean isPlainDoubles()
+  {
+    for (int i=0; i<size; ++i)
+    {
+      double d = doubles[i];
+      if (d != d || Double.doubleToRawLongBits(d) == negZeroBits) return false;
+    }
+    return true;
+  }
+  private static final long negZeroBits = Double.doubleToRawLongBits(-0.0);
+
   public final long binarySearch(Object key) { return binarySearch(key, null); }
   public final long binarySearch(Object key, Func f)
   {
+    if (f == null && longs != null && key instanceof Long) return binarySearch(((Long)key).longValue());
+    if (f == null && doubles != null && key instanceof Double) return binarySearch(((Double)key).doubleValue());
     Comparator c = toComparator(f);
-    Object[] values = this.values;
     int low = 0, high = size-1;
     while (low <= high)
     {
       int probe = (low + high) >> 1;
-      int cmp = c.compare(values[probe], key);
+      int cmp = c.compare(at(probe), key);
+      if (cmp < 0)
+        low = probe + 1;
+      else if (cmp > 0)
+        high = probe - 1;
+      else
+        return probe;
+    }
+    return -(low + 1);
+  }
+
+  private long binarySearch(long key)
+  {
+    long[] longs = this.longs;
+    int low = 0, high = size-1;
+    while (low <= high)
+    {
+      int probe = (low + high) >> 1;
+      long val = longs[probe];
+      if (val < key)
+        low = probe + 1;
+      else if (val > key)
+        high = probe - 1;
+      else
+        return probe;
+    }
+    return -(low + 1);
+  }
+
+  private long binarySearch(double key)
+  {
+    double[] doubles = this.doubles;
+    int low = 0, high = size-1;
+    while (low <= high)
+    {
+      int probe = (low + high) >> 1;
+      long cmp = FanFloat.compare(doubles[probe], key);
       if (cmp < 0)
         low = probe + 1;
       else if (cmp > 0)
@@ -1073,13 +1234,12 @@ public final class List
 
   public final long binaryFind(Func f)
   {
-    Object[] values = this.values;
     int low = 0, high = size-1;
     boolean oneArg = f.arity() == 1;
     while (low <= high)
     {
       int probe = (low + high) >> 1;
-      Object val = values[probe];
+      Object val = at(probe);
       Object res = oneArg ? f.call(val) : f.call(val, Long.valueOf(probe));
       long cmp = ((Long)res).longValue();
       if (cmp > 0)
@@ -1095,16 +1255,10 @@ public final class List
   public final List reverse()
   {
     modify();
-    Object[] values = this.values;
     int size = this.size;
     int mid   = size/2;
     for (int i=0; i<mid; ++i)
-    {
-      Object a = values[i];
-      Object b = values[size-i-1];
-      values[i] = b;
-      values[size-i-1] = a;
-    }
+      swapAt(i, size-i-1);
     return this;
   }
 
@@ -1140,7 +1294,7 @@ public final class List
   {
     for (int i=0; i<size; ++i)
     {
-      Object item = values[i];
+      Object item = at(i);
       if (item instanceof List)
         ((List)item).doFlatten(acc);
       else
@@ -1153,7 +1307,7 @@ public final class List
     if (size == 0) return null;
     int i = FanInt.random.nextInt();
     if (i < 0) i = -i;
-    return values[i % size];
+    return at(i % size);
   }
 
   public final List shuffle()
@@ -1162,9 +1316,7 @@ public final class List
     for (int i=0; i<size; ++i)
     {
       int randi = FanInt.random.nextInt(i+1);
-      Object temp = values[i];
-      values[i] = values[randi];
-      values[randi] = temp;
+      swapAt(i, randi);
     }
     return this;
   }
@@ -1181,7 +1333,7 @@ public final class List
 
     if (size == 1)
     {
-      Object v = values[0];
+      Object v = at(0);
       if (f != null) return (String)f.call(v, 0L);
       if (v == null) return "null";
       return toStr(v);
@@ -1192,9 +1344,9 @@ public final class List
     {
       if (i > 0) s.append(sep);
       if (f == null)
-        s.append(values[i]);
+        s.append(at(i));
       else
-        s.append(f.call(values[i], Long.valueOf(i)));
+        s.append(f.call(at(i), Long.valueOf(i)));
     }
     return s.toString();
   }
@@ -1207,7 +1359,7 @@ public final class List
     for (int i=0; i<size; ++i)
     {
       if (i > 0) s.append(", ");
-      s.append(values[i]);
+      s.append(at(i));
     }
     s.append("]");
     return s.toString();
@@ -1222,7 +1374,7 @@ public final class List
     for (int i=0; i<size; ++i)
     {
       if (i > 0) s.append(',').append(' ');
-      s.append(FanObj.trap(values[i], "toCode", null));
+      s.append(FanObj.trap(at(i), "toCode", null));
     }
     s.append(']');
     return s.toString();
@@ -1248,7 +1400,7 @@ public final class List
     try
     {
       if (i >= size) throw IndexErr.make(""+i);
-      return values[i];
+      return at(i);
     }
     catch (ArrayIndexOutOfBoundsException e)
     {
@@ -1282,41 +1434,35 @@ public final class List
   public final Object[] asArray(Class of)
   {
     // short circuit if values is already correct array type
-    if (size == values.length && of == values.getClass().getComponentType())
+    if (values != null && size == values.length && of == values.getClass().getComponentType())
       return values;
 
     // make a safe copy of correct length and type
     Object[] r = (Object[]) Array.newInstance(of, size);
-    System.arraycopy(values, 0, r, 0, size);
-    return r;
+    return toArray(r);
   }
 
   public final Object[] toArray()
   {
-    if (values.length == size) return values;
-    Object[] r = newArray(size);
-    System.arraycopy(values, 0, r, 0, size);
-    return r;
+    if (values != null && values.length == size) return values;
+    return toArray(newArray(size));
   }
 
   public final Object[] toArray(Object[] a)
   {
-    try
-    {
-      System.arraycopy(values, 0, a, 0, size);
-      return a;
-    }
-    catch (ArrayIndexOutOfBoundsException e)
-    {
-      throw IndexErr.make();
-    }
+    return toArray(a, 0, size);
   }
 
   public final Object[] toArray(Object[] a, int start, int len)
   {
     try
     {
-      System.arraycopy(values, start, a, 0, len);
+      if (values != null)
+        System.arraycopy(values, start, a, 0, len);
+      else if (start < 0 || len > size-start)
+        throw new ArrayIndexOutOfBoundsException();
+      else
+        for (int i=0; i<len; ++i) a[i] = at(start+i);
       return a;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -1329,7 +1475,12 @@ public final class List
   {
     try
     {
-      System.arraycopy(values, 0, a, off, len);
+      if (values != null)
+        System.arraycopy(values, 0, a, off, len);
+      else if (off < 0 || len > size || off > a.length-len)
+        throw new ArrayIndexOutOfBoundsException();
+      else
+        for (int i=0; i<len; ++i) a[off+i] = at(i);
       return a;
     }
     catch (ArrayIndexOutOfBoundsException e)
@@ -1387,6 +1538,15 @@ public final class List
     public int compare(Object a, Object b) { return (int)OpUtil.compare(b, a); }
   };
 
+  static final Comparator floatComparator = new Comparator()
+  {
+    public int compare(Object a, Object b) { return (int)FanFloat.compare(((Double)a).doubleValue(), ((Double)b).doubleValue()); }
+  };
+  static final Comparator floatReverseComparator = new Comparator()
+  {
+    public int compare(Object a, Object b) { return (int)FanFloat.compare(((Double)b).doubleValue(), ((Double)a).doubleValue()); }
+  };
+
 //////////////////////////////////////////////////////////////////////////
 // Readonly
 //////////////////////////////////////////////////////////////////////////
@@ -1405,11 +1565,8 @@ public final class List
   {
     if (!readonly) return this;
 
-    Object[] temp = newArray(size);
-    System.arraycopy(values, 0, temp, 0, size);
-
     List rw = new List(of);
-    rw.values   = temp;
+    rw.setStore(copyOf(size));
     rw.size     = size;
     rw.readonly = false;
     rw.readonlyList = this;
@@ -1422,7 +1579,7 @@ public final class List
     if (readonlyList == null)
     {
       List ro = new List(of);
-      ro.values   = values;
+      ro.setStore(store());
       ro.size     = size;
       ro.readonly = true;
       readonlyList = ro;
@@ -1439,6 +1596,17 @@ public final class List
   {
     if (immutable) return this;
 
+    // primitive items are always immutable
+    if (values == null)
+    {
+      List ro = new List(of);
+      ro.setStore(copyOf(size));
+      ro.size = size;
+      ro.readonly = true;
+      ro.immutable = true;
+      return ro;
+    }
+
     // make safe copy
     Object[] temp = newArray(size);
     for (int i=0; i<size; ++i)
@@ -1473,21 +1641,188 @@ public final class List
     // it so it remains immutable
     if (readonlyList != null)
     {
-      Object[] temp = newArray(size);
-      System.arraycopy(values, 0, temp, 0, size);
-      readonlyList.values = temp;
+      readonlyList.setStore(copyOf(size));
       readonlyList = null;
     }
   }
 
+//////////////////////////////////////////////////////////////////////////
+// Storage
+//////////////////////////////////////////////////////////////////////////
+
+  // Lists of non-nullable Int and Float store their items unboxed in
+  // a long[] or double[] and box them on the way out; every other list
+  // uses an Object[].  Exactly one of values, longs, or doubles is
+  // non-null.  If a value which doesn't fit the primitive store is set,
+  // such as null via reflection, then the list falls back to boxed
+  // storage for good.
+
+  /** Boxed item at the given index */
+  private Object at(int i)
+  {
+    if (values != null) return values[i];
+    if (longs != null) return Long.valueOf(longs[i]);
+    return Double.valueOf(doubles[i]);
+  }
+
+  /** Store the item at the given index, which must fit the store */
+  private void put(int i, Object v)
+  {
+    if (values != null) values[i] = v;
+    else if (longs != null) longs[i] = ((Long)v).longValue();
+    else doubles[i] = ((Double)v).doubleValue();
+  }
+
+  /** Fall back to boxed storage if the value doesn't fit the store */
+  private void fit(Object v)
+  {
+    if (longs != null ? !(v instanceof Long) : doubles != null && !(v instanceof Double))
+      box();
+  }
+
+  /** Copy item from one index to another */
+  private void move(int from, int to)
+  {
+    if (values != null) values[to] = values[from];
+    else if (longs != null) longs[to] = longs[from];
+    else doubles[to] = doubles[from];
+  }
+
+  /** Swap items at the two indices */
+  private void swapAt(int a, int b)
+  {
+    if (values != null) { Object t = values[a]; values[a] = values[b]; values[b] = t; }
+    else if (longs != null) { long t = longs[a]; longs[a] = longs[b]; longs[b] = t; }
+    else { double t = doubles[a]; doubles[a] = doubles[b]; doubles[b] = t; }
+  }
+
+  /** Index of item from start up to or down to end exclusive, or -1 */
+  private int indexOf(Object value, int start, int end, int step)
+  {
+    if (longs != null)
+    {
+      if (!(value instanceof Long)) return -1;
+      long v = ((Long)value).longValue();
+      for (int i=start; step > 0 ? i < end : i > end; i+=step)
+        if (longs[i] == v) return i;
+    }
+    else
+    {
+      if (!(value instanceof Double)) return -1;
+      long v = Double.doubleToLongBits(((Double)value).doubleValue());
+      for (int i=start; step > 0 ? i < end : i > end; i+=step)
+        if (Double.doubleToLongBits(doubles[i]) == v) return i;
+    }
+    return -1;
+  }
+
+  /** Backing array: Object[], long[], or double[] */
+  private Object store()
+  {
+    if (values != null) return values;
+    if (longs != null) return longs;
+    return doubles;
+  }
+
+  private void setStore(Object store)
+  {
+    this.values  = store instanceof Object[] ? (Object[])store : null;
+    this.longs   = store instanceof long[] ? (long[])store : null;
+    this.doubles = store instanceof double[] ? (double[])store : null;
+  }
+
+  /** Length of backing array */
+  private int length()
+  {
+    if (values != null) return values.length;
+    if (longs != null) return longs.length;
+    return doubles.length;
+  }
+
+  /** Copy of the first n items in a new backing array of given capacity */
+  private Object copyOf(int n) { return copyOf(n, n); }
+  private Object copyOf(int n, int capacity)
+  {
+    Object temp;
+    if (values != null) temp = newArray(capacity);
+    else if (longs != null) temp = capacity == 0 ? emptyLongs : new long[capacity];
+    else temp = capacity == 0 ? emptyDoubles : new double[capacity];
+    System.arraycopy(store(), 0, temp, 0, n);
+    return temp;
+  }
+
+  /** Change the capacity of the backing array */
+  private void resize(int capacity)
+  {
+    setStore(copyOf(size, capacity));
+  }
+
+  /** Replace boxed values with a primitive store if every item fits */
+  private void unbox()
+  {
+    Object[] values = this.values;
+    int size = this.size;
+    if (of == Sys.IntType)
+    {
+      long[] temp = values.length == 0 ? emptyLongs : new long[values.length];
+      for (int i=0; i<size; ++i)
+      {
+        if (!(values[i] instanceof Long)) return;
+        temp[i] = ((Long)values[i]).longValue();
+      }
+      setStore(temp);
+    }
+    else if (of == Sys.FloatType)
+    {
+      double[] temp = values.length == 0 ? emptyDoubles : new double[values.length];
+      for (int i=0; i<size; ++i)
+      {
+        if (!(values[i] instanceof Double)) return;
+        temp[i] = ((Double)values[i]).doubleValue();
+      }
+      setStore(temp);
+    }
+  }
+
+  /** Replace primitive store with boxed values of the same capacity */
+  private void box()
+  {
+    if (values != null) return;
+    int n = length();
+    Object[] temp = newArray(n);
+    for (int i=0; i<n; ++i) temp[i] = at(i);
+    setStore(temp);
+  }
+
+  /** Copy n items between lists which may use different stores */
+  private static void copy(List src, int srcPos, List dst, int dstPos, int n)
+  {
+    Object s = src.store(), d = dst.store();
+    if (s.getClass() == d.getClass() || (src.values != null && dst.values != null))
+    {
+      System.arraycopy(s, srcPos, d, dstPos, n);
+      return;
+    }
+    for (int i=0; i<n; ++i)
+    {
+      Object v = src.at(srcPos+i);
+      dst.fit(v);
+      dst.put(dstPos+i, v);
+    }
+  }
+
 //////////////////////////////////////////////////////////////////////////
 // Fields
 //////////////////////////////////////////////////////////////////////////
 
   private static final Object[] empty = new Object[0];
+  private static final long[] emptyLongs = new long[0];
+  private static final double[] emptyDoubles = new double[0];
 
   private Type of;
-  private Object[] values;
+  private Object[] values;     // boxed store or null
+  private long[] longs;        // store for Int lists or null
+  private double[] doubles;    // store for Float lists or null
   private int size;
   private boolean readonly;
   private boolean immutable;
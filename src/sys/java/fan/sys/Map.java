@@ -8,13 +8,18 @@
 package fan.sys;
 
 import java.lang.Thread;
+import java.util.AbstractCollection;
 import java.util.AbstractSet;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map.Entry;
 import java.util.LinkedHashMap;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import fanx.serial.*;
 import fanx.util.OpUtil;
 
@@ -289,19 +294,20 @@ public final class Map
     if (map.size() != 0)
       throw UnsupportedErr.make("Map not empty");
 
-    if (v && ordered())
-      throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
     if (caseInsensitive() == v) return;
 
+    boolean ordered = ordered();
     if (v)
-      map = new CIHashMap();
+      map = new CIHashMap(ordered);
+    else if (ordered)
+      map = new LinkedHashMap();
     else
       map = new HashMap();
   }
 
   public final boolean ordered()
   {
+    if (map instanceof CIHashMap) return ((CIHashMap)map).ordered;
     return map instanceof LinkedHashMap;
   }
 
@@ -312,12 +318,11 @@ public final class Map
     if (map.size() != 0)
       throw UnsupportedErr.make("Map not empty");
 
-    if (v && caseInsensitive())
-      throw UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
     if (ordered() == v) return;
 
-    if (v)
+    if (caseInsensitive())
+      map = new CIHashMap(v);
+    else if (v)
       map = new LinkedHashMap();
     else
       map = new HashMap();
@@ -640,7 +645,7 @@ public final class Map
 
     // allocate new map of correct type
     HashMap temp;
-    if (caseInsensitive()) temp = new CIHashMap(map.size()*2+3);
+    if (caseInsensitive()) temp = new CIHashMap(ordered(), map.size());
     else if (ordered()) temp = new LinkedHashMap(map.size()*2+3);
     else temp = new HashMap(map.size()*2+3);
 
@@ -689,10 +694,7 @@ public final class Map
 
   public Iterator pairsIterator()
   {
-    if (map instanceof CIHashMap)
-      return ((CIHashMap)map).pairs().iterator();
-    else
-      return map.entrySet().iterator();
+    return map.entrySet().iterator();
   }
 
   public Iterator keysIterator()
@@ -710,34 +712,220 @@ public final class Map
 // CIHashMap (Case Insensitive)
 //////////////////////////////////////////////////////////////////////////
 
-  static class CIHashMap extends HashMap
-  {
-    public CIHashMap() {}
-    public CIHashMap(int capacity) { super(capacity); }
-    public Object get(Object key) { return super.get(new CIKey((String)key)); }
-    public boolean containsKey(Object key) { return super.containsKey(new CIKey((String)key)); }
-    public Object put(Object key, Object val) { return super.put(new CIKey((String)key), val); }
-    public Object remove(Object key) { return super.remove(new CIKey((String)key)); }
-    public Set pairs() { return new CIPairs(entrySet()); }
+  /**
+   * CIHashMap is an open addressing hash map of Str keys which are
+   * compared ignoring ASCII case.  Entries are appended to parallel
+   * arrays in insertion order and the table stores entry indices, so
+   * a lookup hashes the key in place without allocating a wrapper.
+   * Because insertion order is free, the same class backs ordered
+   * maps.  It extends HashMap only to fit the map field, so every
+   * HashMap method which touches the inherited storage is overridden
+   * here; that storage is always empty.
+   */
+  static final class CIHashMap extends HashMap
+  {
+    CIHashMap(boolean ordered) { this(ordered, 8); }
+    CIHashMap(boolean ordered, int capacity)
+    {
+      this.ordered = ordered;
+      alloc(Math.max(capacity, 4));
+    }
 
-    public Set keySet()
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public Object get(Object key)
+    {
+      int i = find((String)key);
+      return i < 0 ? null : vals[i];
+    }
+
+    public Object getOrDefault(Object key, Object def)
+    {
+      int i = find((String)key);
+      return i < 0 ? def : vals[i];
+    }
+
+    public boolean containsKey(Object key)
+    {
+      return find((String)key) >= 0;
+    }
+
+    public boolean containsValue(Object val)
+    {
+      for (int i=0; i<count; ++i)
+        if (keys[i] != null && OpUtil.compareEQ(vals[i], val)) return true;
+      return false;
+    }
+
+    public Object put(Object key, Object val)
+    {
+      String k = (String)key;
+      int hash = FanStr.caseInsensitiveHash(k);
+      int i = find(k, hash);
+      if (i >= 0)
+      {
+        Object old = vals[i];
+        vals[i] = val;
+        return old;
+      }
+
+      // when full either compact out removed entries or double
+      if (count == keys.length)
+        alloc(size < count/2 ? keys.length : keys.length*2);
+      append(k, val, hash);
+      return null;
+    }
+
+    public void putAll(java.util.Map m)
     {
-      java.util.HashSet keys = new java.util.HashSet();
-      Iterator it = pairs().iterator();
+      Iterator it = m.entrySet().iterator();
       while (it.hasNext())
       {
-        CIEntry entry = (CIEntry)it.next();
-        keys.add(entry.key);
+        Entry e = (Entry)it.next();
+        put(e.getKey(), e.getValue());
       }
-      return keys;
+    }
+
+    public Object remove(Object key)
+    {
+      int i = find((String)key);
+      if (i < 0) return null;
+      Object old = vals[i];
+      removeAt(i);
+      return old;
+    }
+
+    public void clear()
+    {
+      Arrays.fill(keys, 0, count, null);
+      Arrays.fill(vals, 0, count, null);
+      Arrays.fill(table, 0);
+      count = size = 0;
+    }
+
+    public Object clone()
+    {
+      CIHashMap dup = new CIHashMap(ordered, size);
+      for (int i=0; i<count; ++i)
+        if (keys[i] != null) dup.append(keys[i], vals[i], hashes[i]);
+      return dup;
+    }
+
+    public Object putIfAbsent(Object key, Object val)
+    {
+      Object old = get(key);
+      return old == null ? put(key, val) : old;
+    }
+
+    public boolean remove(Object key, Object val)
+    {
+      int i = find((String)key);
+      if (i < 0 || !OpUtil.compareEQ(vals[i], val)) return false;
+      removeAt(i);
+      return true;
+    }
+
+    public Object replace(Object key, Object val)
+    {
+      int i = find((String)key);
+      if (i < 0) return null;
+      Object old = vals[i];
+      vals[i] = val;
+      return old;
+    }
+
+    public boolean replace(Object key, Object oldVal, Object newVal)
+    {
+      int i = find((String)key);
+      if (i < 0 || !OpUtil.compareEQ(vals[i], oldVal)) return false;
+      vals[i] = newVal;
+      return true;
+    }
+
+    public Object computeIfAbsent(Object key, Function f)
+    {
+      Object old = get(key);
+      if (old != null) return old;
+      Object val = f.apply(key);
+      if (val != null) put(key, val);
+      return val;
+    }
+
+    public Object computeIfPresent(Object key, BiFunction f)
+    {
+      Object old = get(key);
+      if (old == null) return null;
+      Object val = f.apply(key, old);
+      if (val == null) remove(key); else put(key, val);
+      return val;
+    }
+
+    public Object compute(Object key, BiFunction f)
+    {
+      Object old = get(key);
+      Object val = f.apply(key, old);
+      if (val != null) put(key, val);
+      else if (old != null || containsKey(key)) remove(key);
+      return val;
+    }
+
+    public Object merge(Object key, Object val, BiFunction f)
+    {
+      if (val == null || f == null) throw new NullPointerException();
+      Object old = get(key);
+      Object merged = old == null ? val : f.apply(old, val);
+      if (merged == null) remove(key); else put(key, merged);
+      return merged;
+    }
+
+    public void forEach(BiConsumer f)
+    {
+      for (int i=0; i<count; ++i)
+        if (keys[i] != null) f.accept(keys[i], vals[i]);
+    }
+
+    public void replaceAll(BiFunction f)
+    {
+      for (int i=0; i<count; ++i)
+        if (keys[i] != null) vals[i] = f.apply(keys[i], vals[i]);
+    }
+
+    public Set entrySet()
+    {
+      return new AbstractSet()
+      {
+        public int size() { return size; }
+        public Iterator iterator() { return new CIIterator() { Object item(int i) { return new CIEntry(i); } }; }
+      };
+    }
+
+    public Set keySet()
+    {
+      return new AbstractSet()
+      {
+        public int size() { return size; }
+        public boolean contains(Object key) { return containsKey(key); }
+        public Iterator iterator() { return new CIIterator() { Object item(int i) { return keys[i]; } }; }
+      };
+    }
+
+    public Collection values()
+    {
+      return new AbstractCollection()
+      {
+        public int size() { return size; }
+        public Iterator iterator() { return new CIIterator() { Object item(int i) { return vals[i]; } }; }
+      };
     }
 
     public int hashCode()
     {
       int hash = 0;
-      Iterator it = pairs().iterator();
-      while (it.hasNext())
-        hash += it.next().hashCode();
+      for (int i=0; i<count; ++i)
+        if (keys[i] != null)
+          hash += keys[i].hashCode() ^ (vals[i] == null ? 0 : vals[i].hashCode());
       return hash;
     }
 
@@ -745,56 +933,131 @@ public final class Map
     {
       if (!(obj instanceof HashMap)) return false;
       HashMap that = (HashMap)obj;
-      if (size() != that.size()) return false;
-      Iterator it = pairs().iterator();
-      while (it.hasNext())
+      if (size != that.size()) return false;
+      for (int i=0; i<count; ++i)
       {
-        CIEntry entry = (CIEntry)it.next();
-        Object thatVal = that.get(entry.key);
-        if (!OpUtil.compareEQ(entry.val, thatVal)) return false;
+        if (keys[i] == null) continue;
+        Object thatVal = that.get(keys[i]);
+        if (!OpUtil.compareEQ(vals[i], thatVal)) return false;
       }
       return true;
     }
-  }
 
-  static final class CIPairs extends AbstractSet
-  {
-    CIPairs(Set set) { this.set = set; }
-    public int size() { return set.size(); }
-    public Iterator iterator() { return new CIPairsIterator(set.iterator()); }
-    Set set;
-  }
+    private int find(String key)
+    {
+      if (key == null) return -1;
+      return find(key, FanStr.caseInsensitiveHash(key));
+    }
 
-  static final class CIPairsIterator implements Iterator
-  {
-    CIPairsIterator(Iterator it) { this.it = it; }
-    public boolean hasNext() { return it.hasNext(); }
-    public Object next() { entry.set((Entry)it.next()); return entry; }
-    public void remove() { it.remove(); }
-    Iterator it;
-    CIEntry entry = new CIEntry();
-  }
+    private int find(String key, int hash)
+    {
+      int[] table = this.table;
+      int mask = table.length - 1;
+      for (int s = spread(hash) & mask; ; s = (s + 1) & mask)
+      {
+        int i = table[s] - 1;
+        if (i < 0) return -1;
+        if (hashes[i] == hash && keys[i] != null && FanStr.equalsIgnoreCase(keys[i], key)) return i;
+      }
+    }
 
-  static final class CIEntry implements Entry
-  {
-    public void set(Entry e) { key = ((CIKey)e.getKey()).key; val = e.getValue(); }
-    public Object getKey() { return key; }
-    public Object getValue() { return val; }
-    public int hashCode() { return key.hashCode() ^ (val == null ? 0 : val.hashCode()); }
-    public boolean equals(Object o) { throw new UnsupportedOperationException(); }
-    public Object setValue(Object v) { throw new UnsupportedOperationException(); }
-    String key;
-    Object val;
-  }
+    private void append(String key, Object val, int hash)
+    {
+      int i = count++;
+      keys[i] = key;
+      vals[i] = val;
+      hashes[i] = hash;
+      size++;
+
+      int mask = table.length - 1;
+      int s = spread(hash) & mask;
+      while (table[s] != 0) s = (s + 1) & mask;
+      table[s] = i + 1;
+    }
 
-  static final class CIKey
-  {
-    CIKey(String key) { this.key = key; this.hash = FanStr.caseInsensitiveHash(key); }
-    public final int hashCode() { return hash; }
-    public final boolean equals(Object obj) { return FanStr.equalsIgnoreCase(key, ((CIKey)obj).key); }
-    public final String toString() { return key; }
-    final String key;
-    final int hash;
+    void removeAt(int i)
+    {
+      // leave the table slot in place so probe chains stay
+      // intact; it is dropped the next time we alloc
+      keys[i] = null;
+      vals[i] = null;
+      if (--size == 0) clear();
+    }
+
+    private void alloc(int capacity)
+    {
+      String[] oldKeys = keys;
+      Object[] oldVals = vals;
+      int[] oldHashes = hashes;
+      int oldCount = count;
+
+      keys   = new String[capacity];
+      vals   = new Object[capacity];
+      hashes = new int[capacity];
+      table  = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+      count  = size = 0;
+
+      for (int i=0; i<oldCount; ++i)
+        if (oldKeys[i] != null) append(oldKeys[i], oldVals[i], oldHashes[i]);
+    }
+
+    private static int spread(int hash) { return hash ^ (hash >>> 16); }
+
+    /** Iterate the live entries in insertion order */
+    abstract class CIIterator implements Iterator
+    {
+      abstract Object item(int i);
+
+      public boolean hasNext()
+      {
+        while (next < count && keys[next] == null) ++next;
+        return next < count;
+      }
+
+      public Object next()
+      {
+        if (!hasNext()) throw new java.util.NoSuchElementException();
+        last = next++;
+        return item(last);
+      }
+
+      public void remove()
+      {
+        if (last < 0 || keys[last] == null) throw new IllegalStateException();
+        removeAt(last);
+        last = -1;
+      }
+
+      int next;
+      int last = -1;
+    }
+
+    /** Entry at index which reads and writes its value through to the map */
+    final class CIEntry implements Entry
+    {
+      CIEntry(int index) { this.key = keys[index]; this.index = index; }
+      public Object getKey() { return key; }
+      public Object getValue() { return vals[index]; }
+      public Object setValue(Object v) { Object old = vals[index]; vals[index] = v; return old; }
+      public int hashCode() { Object v = getValue(); return key.hashCode() ^ (v == null ? 0 : v.hashCode()); }
+      public boolean equals(Object o)
+      {
+        if (!(o instanceof Entry)) return false;
+        Entry e = (Entry)o;
+        return key.equals(e.getKey()) && OpUtil.compareEQ(getValue(), e.getValue());
+      }
+      public String toString() { return key + "=" + getValue(); }
+      private final String key;
+      private final int index;
+    }
+
+    final boolean ordered;
+    private String[] keys;
+    private Object[] vals;
+    private int[] hashes;
+    private int[] table;    // entry index + 1, or zero if empty
+    private int count;      // entries appended including removed
+    private int size;       // live entries
   }
 
 //////////////////////////////////////////////////////////////////////////
@@ -256,9 +256,6 @@ fan.sys.Map.prototype.caseInsensitive$ = function(val)
   if (this.m_size != 0)
     throw fan.sys.UnsupportedErr.make("Map not empty");
 
-  if (val && this.ordered())
-    throw fan.sys.UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
   this.m_caseInsensitive = val;
 }
 
@@ -271,9 +268,6 @@ fan.sys.Map.prototype.ordered$ = function(val)
   if (this.m_size != 0)
     throw fan.sys.UnsupportedErr.make("Map not empty");
 
-  if (val && this.caseInsensitive())
-    throw fan.sys.UnsupportedErr.make("Map cannot be caseInsensitive and ordered");
-
   this.m_ordered = val;
   this.m_keys = [];
 }